@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.scene.image.Image;
+
+/**
+ * Decodes each image once and shares it. Images can be preloaded on a
+ * background thread during startup, anyone asking for one still being
+ * decoded waits for it instead of decoding it again.
+ *
+ * @author Mack
+ */
+public final class Assets {
+
+    public static final String LANDER = "Lander.png";
+
+    private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<>();
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Asset Loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Assets() {
+    }
+
+    /**
+     * Can be called from any thread, the image must not be changed
+     *
+     * @param name Name of the image on the class path
+     * @return The decoded image
+     */
+    public static Image getImage(String name) {
+        return images.computeIfAbsent(name, Image::new);
+    }
+
+    /**
+     * Starts decoding images in the background
+     *
+     * @param names Names of the images on the class path
+     */
+    public static void preload(String... names) {
+        for (String name : names) {
+            loader.execute(() -> getImage(name));
+        }
+    }
+}
@@ -28,6 +28,11 @@ import com.almasb.fxgl.entity.GameEntity;
 import com.almasb.fxgl.entity.component.CollidableComponent;
 import com.almasb.fxgl.physics.BoundingShape;
 import com.almasb.fxgl.physics.HitBox;
+import com.almasb.fxgl.physics.PhysicsComponent;
+import java.util.Random;
+import javafx.geometry.Point2D;
+import javafx.scene.CacheHint;
+import javafx.scene.Node;
 import javafx.scene.image.ImageView;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Polygon;
@@ -37,6 +42,12 @@ import lunar_lander.control.OutOfBoundsControl;
 import lunar_lander.control.ParticleControl;
 import lunar_lander.control.ParticleCrashControl;
 import lunar_lander.control.PlayerControl;
+import lunar_lander.sim.Terrain;
+import lunar_lander.sim.TerrainCache;
+import lunar_lander.ui.TerrainLayer;
+import org.jbox2d.dynamics.BodyDef;
+import org.jbox2d.dynamics.BodyType;
+import org.jbox2d.dynamics.FixtureDef;
 
 /**
  *
@@ -44,9 +55,9 @@ import lunar_lander.control.PlayerControl;
  */
 public class EntityFactory {
 
-    private static final int landWidth = 500;
+    private static final int landWidth = Terrain.DEFAULT_POINTS;
 
-    private static Double[] generatedLand = new Double[landWidth];
+    private static final EntityRegistry registry = new EntityRegistry();
 
     /**
      *
@@ -56,7 +67,7 @@ public class EntityFactory {
      * @return
      */
     public static Entity newPlayer(double x, double y, int s) {
-        ImageView scaledLander = new ImageView("Lander.png");
+        ImageView scaledLander = new ImageView(Assets.getImage(Assets.LANDER));
         scaledLander.setPreserveRatio(false);
         scaledLander.setFitHeight(25);
         scaledLander.setFitWidth(25);
@@ -73,91 +84,133 @@ public class EntityFactory {
         Player.getBoundingBoxComponent().addHitBox(new HitBox("BODY", BoundingShape.circle(5)));
 
         Player.addControl(new PlayerControl());
-        return Player;
+        return registry.add(Player, EntityType.PLAYER);
     }
 
     /**
+     * Creates land from a new random seed
      *
      * @param x
      * @param y
      * @return
      */
     public static Entity newLand(double x, double y) {
-        double currentSpace = 0.0;
-        double spaceing = 10.0;
-        double lastPoint = -150;
-        double flatLandDevider = 1;
-        
-        //refined chances
-        double flatLandChance = .16;
-        double hillUpChance = .42;
-        double hillDownChance = .84;
-        
-        //generate a randomiized land points
-        generatedLand[0] = 0.0;
-        generatedLand[1] = 0.0;
-        
-        for (int a = 2; a < landWidth - 2; a += 2) {
-            double centerChance = (lastPoint+150)/10000;
-            
-            hillUpChance -= centerChance;
-            hillDownChance += centerChance;
-                    
-            double random = Math.random();
-
-            if (random <= (hillUpChance / flatLandDevider)) {
-                generatedLand[a] = currentSpace;
-                generatedLand[a + 1] = lastPoint + ((-Math.random() * 25) + 25);
-                currentSpace = currentSpace + spaceing;
-                lastPoint = generatedLand[a + 1];
-                flatLandDevider = 1;
-            } else if (random < (hillDownChance / flatLandDevider)) {
-                generatedLand[a] = currentSpace;
-                generatedLand[a + 1] = lastPoint + ((-Math.random() * 25) + 0);
-                currentSpace = currentSpace + spaceing;
-                lastPoint = generatedLand[a + 1];
-                flatLandDevider = 1;
-            } else {
-                generatedLand[a] = currentSpace;
-                generatedLand[a + 1] = lastPoint;
-                currentSpace = currentSpace + spaceing;
-                lastPoint = generatedLand[a + 1];
-                flatLandDevider = 2;
-            }
-        }
-        generatedLand[landWidth - 2] = currentSpace - spaceing;
-        generatedLand[landWidth - 1] = 0.0;
+        return newLand(TerrainCache.getShared().get(new Random().nextLong(), landWidth), x, y);
+    }
 
+    /**
+     *
+     * @param terrain The generated land points
+     * @param x
+     * @param y
+     * @return
+     */
+    public static Entity newLand(Terrain terrain, double x, double y) {
         //put generated land in to polygon
+        double[] points = terrain.getPoints();
+        Double[] generatedLand = new Double[points.length];
+        for (int a = 0; a < points.length; a++) {
+            generatedLand[a] = points[a];
+        }
         Polygon polygon = new Polygon();
         polygon.getPoints().addAll(generatedLand);
         polygon.setFill(Color.WHITE);
-        
-        //create Entity with polygon
+
+        return newLandEntity(polygon, x, y);
+    }
+
+    /**
+     * Creates land drawn from images cached by the layer
+     *
+     * @param layer Layer the terrain has been set on
+     * @param terrain The generated land points
+     * @param x
+     * @param y
+     * @return
+     */
+    public static Entity newLand(TerrainLayer layer, Terrain terrain, double x, double y) {
+        layer.setTerrain(terrain, x);
+        return newLandEntity(layer.getNode(), x, y);
+    }
+
+    private static Entity newLandEntity(Node view, double x, double y) {
         GameEntity Land = new GameEntity();
-        Land.getTypeComponent().setValue(EntityType.PLAYER);
+        Land.getTypeComponent().setValue(EntityType.LAND);
         Land.getPositionComponent().setValue(x, y);
-        Land.getMainViewComponent().setView(polygon, true);
+        Land.getMainViewComponent().setView(view, true);
         Land.addControl(new LandControl());
         Land.addComponent(new CollidableComponent(true));
-        
-        return Land;
+
+        return registry.add(Land, EntityType.LAND);
     }
 
     /**
+     * A static chain along the top of part of the land for debris to land on
      *
+     * @param terrain The land
+     * @param x Screen X position of the start of the land
+     * @param y Screen Y position of the bottom of the land
+     * @param from Start of the part, relative to the start of the land
+     * @param to End of the part, relative to the start of the land
      * @return
      */
-    public static Double[] getLand() {
-        return generatedLand;
+    public static Entity newGround(Terrain terrain, double x, double y, double from, double to) {
+        double[] points = terrain.getPoints();
+        //the top edge runs from the second to the second last vertex
+        int first = Math.max(1, (int) (from / Terrain.SPACING) + 1);
+        int last = Math.max(first + 1, Math.min(points.length / 2 - 2, (int) (to / Terrain.SPACING) + 2));
+
+        Point2D[] chain = new Point2D[last - first + 1];
+        for (int a = first; a <= last; a++) {
+            chain[a - first] = new Point2D(points[a * 2] - points[first * 2], points[a * 2 + 1]);
+        }
+
+        GameEntity ground = new GameEntity();
+        ground.getTypeComponent().setValue(EntityType.LAND);
+        ground.getPositionComponent().setValue(x + points[first * 2], y);
+        ground.getBoundingBoxComponent().addHitBox(new HitBox("GROUND", BoundingShape.chain(chain)));
+
+        PhysicsComponent physics = new PhysicsComponent();
+        physics.setBodyType(BodyType.STATIC);
+        ground.addComponent(physics);
+        return registry.add(ground, EntityType.LAND);
     }
 
     /**
+     * A piece of a crashed lander. Its body starts inactive so it costs
+     * nothing until DebrisPool throws it.
      *
+     * @param view How the piece looks
+     * @param size Width and height of the piece
      * @return
      */
-    public static int getLandWidth() {
-        return (landWidth - 4) / 2 * 10;
+    public static Entity newDebris(Node view, double size) {
+        GameEntity debris = new GameEntity();
+        debris.getTypeComponent().setValue(EntityType.DEBRIS);
+        debris.getMainViewComponent().setView(view);
+        debris.getBoundingBoxComponent().addHitBox(new HitBox("BODY", BoundingShape.box(size, size)));
+
+        BodyDef body = new BodyDef();
+        body.type = BodyType.DYNAMIC;
+        body.active = false;
+        body.allowSleep = true;
+        body.linearDamping = 0.1f;
+        body.angularDamping = 3f;
+
+        PhysicsComponent physics = new PhysicsComponent();
+        physics.setBodyDef(body);
+        physics.setFixtureDef(new FixtureDef().setDensity(1).setFriction(1.5f).setRestitution(0.05f));
+        debris.addComponent(physics);
+        return registry.add(debris, EntityType.DEBRIS);
+    }
+
+    /**
+     * Every entity made here is in the registry until it leaves the world
+     *
+     * @return The entities made, by type
+     */
+    public static EntityRegistry getRegistry() {
+        return registry;
     }
 
     /**
@@ -174,7 +227,7 @@ public class EntityFactory {
         thrustFX.getTypeComponent().setValue(EntityType.PARTICLE);
         thrustFX.getMainViewComponent().setView(new Rectangle(2, 2, color));
         thrustFX.addControl(new ParticleControl());
-        return thrustFX;
+        return registry.add(thrustFX, EntityType.PARTICLE);
     }
 
     /**
@@ -190,7 +243,7 @@ public class EntityFactory {
         thrustFX.getTypeComponent().setValue(EntityType.PARTICLE);
         thrustFX.getMainViewComponent().setView(new Rectangle((int) (1 + Math.random() * 2), (int) (1 + Math.random() * 2), color));
         thrustFX.addControl(new ParticleCrashControl());
-        return thrustFX;
+        return registry.add(thrustFX, EntityType.PARTICLE);
     }
 
     /**
@@ -206,13 +259,18 @@ public class EntityFactory {
         GameEntity thrustFX = new GameEntity();
         thrustFX.getPositionComponent().setValue(x, y);
         thrustFX.getTypeComponent().setValue(EntityType.WALL);
+        Rectangle wall;
         if(opacity){
-            thrustFX.getMainViewComponent().setView(new Rectangle(width, hight, Color.rgb(255, 0, 0, .5)));
+            wall = new Rectangle(width, hight, Color.rgb(255, 0, 0, .5));
         }
         else{
-            thrustFX.getMainViewComponent().setView(new Rectangle(width, hight, Color.rgb(255, 0, 0)));
+            wall = new Rectangle(width, hight, Color.rgb(255, 0, 0));
         }
+        //walls only ever move, draw them once and reuse the image
+        wall.setCache(true);
+        wall.setCacheHint(CacheHint.SPEED);
+        thrustFX.getMainViewComponent().setView(wall);
         thrustFX.addControl(new OutOfBoundsControl());
-        return thrustFX;
+        return registry.add(thrustFX, EntityType.WALL);
     }
 }
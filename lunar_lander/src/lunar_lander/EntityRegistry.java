@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander;
+
+import com.almasb.ents.AbstractControl;
+import com.almasb.ents.Entity;
+import java.util.Arrays;
+
+/**
+ * Keeps the entities of each EntityType in their own dense array, so a type
+ * can be counted, walked or cleared without going through the whole game
+ * world. Removing an entity moves the last one of its type in to its place.
+ *
+ * Entities leave the registry by themselves when they are removed from the
+ * world, including by an ExpireCleanControl. FX thread only.
+ *
+ * <pre>
+ * for (int x = 0; x &lt; registry.count(EntityType.PARTICLE); x++) {
+ *     Entity particle = registry.get(EntityType.PARTICLE, x);
+ * }
+ * </pre>
+ *
+ * @author Mack
+ */
+public class EntityRegistry {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Member[][] members = new Member[EntityType.values().length][];
+    private final int[] counts = new int[members.length];
+
+    /**
+     * Where an entity is in the registry, removes it when the entity leaves
+     * the world
+     */
+    private final class Member extends AbstractControl {
+
+        final Entity entity;
+        final EntityType type;
+        int index;
+
+        Member(Entity entity, EntityType type) {
+            this.entity = entity;
+            this.type = type;
+        }
+
+        @Override
+        public void onUpdate(Entity entity, double tpf) {
+        }
+
+        @Override
+        public void onRemoved(Entity entity) {
+            release(this);
+        }
+    }
+
+    public EntityRegistry() {
+        for (int x = 0; x < members.length; x++) {
+            members[x] = new Member[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     *
+     * @param entity A new entity, not yet in the registry
+     * @param type The type the entity was given
+     * @return The entity
+     */
+    public Entity add(Entity entity, EntityType type) {
+        Member member = new Member(entity, type);
+        int t = type.ordinal();
+        if (counts[t] == members[t].length) {
+            members[t] = Arrays.copyOf(members[t], counts[t] * 2);
+        }
+        member.index = counts[t];
+        members[t][counts[t]++] = member;
+        entity.addControl(member);
+        return entity;
+    }
+
+    /**
+     *
+     * @param type Type of entity
+     * @return The number of entities of the type
+     */
+    public int count(EntityType type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * The order changes whenever an entity is removed
+     *
+     * @param type Type of entity
+     * @param index From 0 to count(type) - 1
+     * @return The entity at the index
+     */
+    public Entity get(EntityType type, int index) {
+        return members[type.ordinal()][index].entity;
+    }
+
+    /**
+     * Removes every entity of a type from the registry and the world
+     *
+     * @param type Type of entity
+     */
+    public void removeAll(EntityType type) {
+        int t = type.ordinal();
+        Member[] list = members[t];
+        int count = counts[t];
+
+        //take them out first so the world removing them does not move any
+        counts[t] = 0;
+        for (int x = 0; x < count; x++) {
+            Member member = list[x];
+            list[x] = null;
+            member.index = -1;
+            member.entity.removeFromWorld();
+        }
+    }
+
+    private void release(Member member) {
+        if (member.index < 0) {
+            return;
+        }
+        int t = member.type.ordinal();
+        Member[] list = members[t];
+        int last = --counts[t];
+        if (member.index != last) {
+            list[member.index] = list[last];
+            list[member.index].index = member.index;
+        }
+        list[last] = null;
+        member.index = -1;
+    }
+}
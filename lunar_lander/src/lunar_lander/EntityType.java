@@ -28,5 +28,5 @@ package lunar_lander;
  * @author Mack
  */
 public enum EntityType {
-    LAND, PLAYER , PARTICLE, WALL
+    LAND, PLAYER , PARTICLE, WALL, DEBRIS
 }
@@ -34,10 +34,6 @@ import com.almasb.fxgl.input.Input;
 import com.almasb.fxgl.input.UserAction;
 import com.almasb.fxgl.physics.PhysicsWorld;
 import com.almasb.fxgl.settings.GameSettings;
-import javafx.beans.property.DoubleProperty;
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleIntegerProperty;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
@@ -48,57 +44,101 @@ import lunar_lander.control.LandControl;
 import lunar_lander.control.ParticleControl;
 import lunar_lander.control.ParticleCrashControl;
 import lunar_lander.control.PlayerControl;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import javax.swing.JOptionPane;
+import java.util.Random;
 import lunar_lander.control.OutOfBoundsControl;
+import lunar_lander.ghost.GhostLayer;
+import lunar_lander.ghost.GhostStore;
+import lunar_lander.ghost.GhostTrack;
+import lunar_lander.particle.ParticleGovernor;
+import lunar_lander.particle.ParticleLayer;
+import lunar_lander.particle.Particles;
+import lunar_lander.score.Leaderboard;
+import lunar_lander.score.ScoreStore;
+import lunar_lander.sim.LanderSimulation;
+import lunar_lander.sim.LevelPack;
+import lunar_lander.sim.SimulationListener;
+import lunar_lander.sim.SimulationRunner;
+import lunar_lander.sim.SimulationState;
+import lunar_lander.sim.Terrain;
+import lunar_lander.sim.TerrainCache;
+import lunar_lander.telemetry.FlightRecorder;
+import lunar_lander.telemetry.GameTrace;
+import lunar_lander.ui.Hud;
+import lunar_lander.ui.LandingLabels;
+import lunar_lander.ui.LevelBrowser;
+import lunar_lander.ui.Minimap;
+import lunar_lander.ui.Overlays;
+import lunar_lander.ui.TerrainLayer;
+import lunar_lander.ui.Thumbnails;
 
 /**
  *
  * @author Mack
  */
-public class Lunar_lander extends GameApplication {
+public class Lunar_lander extends GameApplication implements SimulationListener {
 
     //Entitys
     private Entity player;
     private Entity land;
 
-    //World varibles
-    private final double gravity = 0.004;
+    //Lander physics and game rules, set -Dlander.seed to replay the same lands
+    //or -Dlander.levels to play the levels of a level pack
+    private final LevelPack levels = openLevels();
+    private final LanderSimulation sim = new LanderSimulation(Long.getLong("lander.seed", new Random().nextLong()), levels);
+
+    //Ticks the simulation on its own thread, the FX thread only reads states
+    //set -Dlander.speed to start faster or slower, = and - change it in game
+    private final SimulationRunner runner = new SimulationRunner(sim, SimulationRunner.DEFAULT_RATE);
+    private SimulationState state = runner.read();
+    private int appliedRound = 0;
+    private double appliedScroll = 0;
+    private boolean heldForGameOver = false;
+
+    //Ghosts of earlier runs on the same land
+    private final int maxGhosts = 200;
+    private final GhostStore ghostStore = new GhostStore();
+    private GhostLayer ghostLayer;
+
+    //only used by the simulation thread
+    private GhostTrack ghostRun;
+    private int ghostRound = -1;
+    private boolean ghostSaved = false;
+
+    //Every tick of every flight, set -Dlander.telemetry to the folder to
+    //record to and -Dlander.telemetry.mb to the size of each file
+    private final FlightRecorder flightRecorder = System.getProperty("lander.telemetry") == null ? null
+            : new FlightRecorder(Paths.get(System.getProperty("lander.telemetry")),
+                    Long.getLong("lander.telemetry.mb", 64) << 20);
+
+    //High scores, kept with the profiles
+    private final ScoreStore leaderboard = new ScoreStore(Paths.get("profiles"));
+    private final String playerName = System.getProperty("lander.player", System.getProperty("user.name"));
 
     //Window varibles
     private final int windowWidth = 1000;
     private final int windowHight = 800;
 
     //Land varibles 
-    private double landPositionX = 0;
     private double landXOffSet;
 
-    private Double landPoints[];
+    //land drawn once per terrain in to images
+    private final TerrainLayer terrainLayer = new TerrainLayer(windowWidth, TerrainLayer.DEFAULT_CHUNK_WIDTH);
 
-    //Lander varibles
-    private double positionX = 200;
-    private double positionY = 100;
-    private double velocityX = Math.random();
-    private double velocityY = 0;
-    private double rotationalVelocity = 0;
-    private double rotation = 0;
+    //Sparks and smoke that bounce off the land, set -Dlander.particles.terrain
+    //to use them instead of particle entities
+    private final Particles particles = Boolean.getBoolean("lander.particles.terrain")
+            ? new Particles(Integer.getInteger("lander.particles.max", 20000)) : null;
+    private ParticleLayer particleLayer;
 
-    private final double turnSpeed = .01;
-    private final double maxLandingVelocity = .35;
-    private final double maxThrust = .01;
-
-    private final int delayTime = 300;
-
-    private int delayTimerActive;
-    private int hasLandedDelay = 5;
-
-    private boolean landed = false;
-    private boolean crashed = false;
-
-    private IntegerProperty throttle;
-    private IntegerProperty score = new SimpleIntegerProperty(0);
-    private IntegerProperty lives = new SimpleIntegerProperty(2);
-    private DoubleProperty fuel = new SimpleDoubleProperty(10000);
+    //spends fewer particles when frames run long, -Dlander.particles.budget
+    //is how many may be alive at once at full quality
+    //flight recorder events, when the JDK has them
+    private final GameTrace trace = GameTrace.load();
+    private final ParticleGovernor governor = new ParticleGovernor(60, Integer.getInteger("lander.particles.budget", 5000));
 
     //Controls 
     private PlayerControl playerC;
@@ -109,14 +149,28 @@ public class Lunar_lander extends GameApplication {
     private ArrayList<OutOfBoundsControl> outOfWorldC = new <OutOfBoundsControl>ArrayList();
 
     //Text varibles
-    private ArrayList<Text> landingPoints = new ArrayList();
+    private Overlays overlays;
+    private int round = 1;
+    //score above each landing pad, only pads on screen get one
+    private LandingLabels landingLabels;
+    //the whole land in the corner, with the window and the lander on it
+    private Minimap minimap;
+    private DebrisPool debris;
+    //L shows the levels of the pack, or numbered generated lands, to pick from
+    private static final int BROWSER_SEEDS = 1000;
+    private LevelBrowser levelBrowser;
     Text screenText;
-    Text boundsText;
-    Text LandedText;
-    Text xVelText;
-    Text yVelText;
 
-    private boolean boundsTextAdded = false;
+    //Numbers on screen, set -Dlander.hud.hz to change how often they update
+    private Hud hud;
+
+    //set -Dlander.startup.benchmark to print the time from main to the first
+    //frame and quit
+    private static long launched;
+    private boolean firstFrame = true;
+
+    //parts the first frame can do without, made one per frame after it
+    private final ArrayDeque<Runnable> deferred = new ArrayDeque<>();
 
     /**
      * Launches the game
@@ -124,9 +178,27 @@ public class Lunar_lander extends GameApplication {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        launched = System.nanoTime();
         launch(args);
     }
 
+    /**
+     *
+     * @return The level pack named by -Dlander.levels, null if there is none
+     */
+    private static LevelPack openLevels() {
+        String file = System.getProperty("lander.levels");
+        if (file == null) {
+            return null;
+        }
+        try {
+            return LevelPack.open(Paths.get(file));
+        } catch (IOException e) {
+            System.out.println("Could not load levels: " + e);
+            return null;
+        }
+    }
+
     /**
      * Bind HIDs to actions
      */
@@ -136,35 +208,153 @@ public class Lunar_lander extends GameApplication {
 
         input.addAction(new UserAction("Move Right") {
             @Override
-            protected void onAction() {
-                rotationalVelocity += turnSpeed;
+            protected void onActionBegin() {
+                runner.setInput(LanderSimulation.INPUT_RIGHT, true);
+            }
+
+            @Override
+            protected void onActionEnd() {
+                runner.setInput(LanderSimulation.INPUT_RIGHT, false);
             }
         }, KeyCode.D);
 
         input.addAction(new UserAction("Move Left") {
             @Override
-            protected void onAction() {
-                rotationalVelocity -= turnSpeed;
+            protected void onActionBegin() {
+                runner.setInput(LanderSimulation.INPUT_LEFT, true);
+            }
+
+            @Override
+            protected void onActionEnd() {
+                runner.setInput(LanderSimulation.INPUT_LEFT, false);
             }
         }, KeyCode.A);
 
         input.addAction(new UserAction("Move Up") {
             @Override
-            protected void onAction() {
-                if (throttle.get() < 100 && !onGround()) {
-                    throttle.set(throttle.get() + 1);
-                }
+            protected void onActionBegin() {
+                runner.setInput(LanderSimulation.INPUT_UP, true);
+            }
+
+            @Override
+            protected void onActionEnd() {
+                runner.setInput(LanderSimulation.INPUT_UP, false);
             }
         }, KeyCode.W);
 
         input.addAction(new UserAction("Move Down") {
             @Override
-            protected void onAction() {
-                if (throttle.get() > 0 && !onGround()) {
-                    throttle.set(throttle.get() - 1);
-                }
+            protected void onActionBegin() {
+                runner.setInput(LanderSimulation.INPUT_DOWN, true);
+            }
+
+            @Override
+            protected void onActionEnd() {
+                runner.setInput(LanderSimulation.INPUT_DOWN, false);
             }
         }, KeyCode.S);
+
+        //time dilation for testing levels, runs played with it are not ranked
+        input.addAction(new UserAction("Speed Up") {
+            @Override
+            protected void onActionBegin() {
+                runner.setSpeed(runner.getSpeed() * 2);
+            }
+        }, KeyCode.EQUALS);
+
+        input.addAction(new UserAction("Slow Down") {
+            @Override
+            protected void onActionBegin() {
+                runner.setSpeed(runner.getSpeed() / 2);
+            }
+        }, KeyCode.MINUS);
+
+        input.addAction(new UserAction("Normal Speed") {
+            @Override
+            protected void onActionBegin() {
+                runner.setSpeed(1);
+            }
+        }, KeyCode.DIGIT0);
+
+        input.addAction(new UserAction("Choose Land") {
+            @Override
+            protected void onActionBegin() {
+                toggleLevelBrowser();
+            }
+        }, KeyCode.L);
+    }
+
+    /**
+     * Shows or hides the level browser, it is made the first time
+     */
+    private void toggleLevelBrowser() {
+        if (levelBrowser == null) {
+            LevelBrowser.Source source;
+            if (levels != null) {
+                String pack = Paths.get(System.getProperty("lander.levels")).getFileName().toString();
+                source = new LevelBrowser.Source() {
+                    @Override
+                    public int size() {
+                        return levels.size();
+                    }
+
+                    @Override
+                    public String getKey(int index) {
+                        return pack + "-" + index;
+                    }
+
+                    @Override
+                    public String getName(int index) {
+                        return "Level " + (index + 1);
+                    }
+
+                    @Override
+                    public Terrain getTerrain(int index) {
+                        return levels.readTerrain(index);
+                    }
+                };
+            } else {
+                source = new LevelBrowser.Source() {
+                    @Override
+                    public int size() {
+                        return BROWSER_SEEDS;
+                    }
+
+                    @Override
+                    public String getKey(int index) {
+                        return "seed-" + index;
+                    }
+
+                    @Override
+                    public String getName(int index) {
+                        return "Land " + index;
+                    }
+
+                    @Override
+                    public Terrain getTerrain(int index) {
+                        return TerrainCache.getShared().get(index);
+                    }
+                };
+            }
+            Thumbnails thumbnails = new Thumbnails(LevelBrowser.THUMB_WIDTH, LevelBrowser.THUMB_HEIGHT);
+            levelBrowser = new LevelBrowser(getUIFactory(), windowWidth, windowHight, thumbnails, source, this::chooseLevel);
+            getGameScene().addUINodes(levelBrowser.getNode());
+        }
+        levelBrowser.setShowing(!levelBrowser.isShowing());
+    }
+
+    /**
+     * Starts a new game on the land picked in the level browser
+     *
+     * @param index Index of the level, or seed of the land without a pack
+     */
+    private void chooseLevel(int index) {
+        levelBrowser.setShowing(false);
+        if (levels != null) {
+            runner.execute(() -> sim.playLevel(index));
+        } else {
+            runner.execute(() -> sim.playSeed(index));
+        }
     }
 
     /**
@@ -172,6 +362,9 @@ public class Lunar_lander extends GameApplication {
      */
     @Override
     protected void initAssets() {
+        //scores are not needed until the first landing
+        leaderboard.loadInBackground();
+        Runtime.getRuntime().addShutdownHook(new Thread(leaderboard::close));
     }
 
     /**
@@ -185,12 +378,13 @@ public class Lunar_lander extends GameApplication {
         bg0.setFill(Color.BLACK);
         Pane bg = new Pane();
         bg.getChildren().add(bg0);
+        bg.setCache(true);
         Entities.builder()
                 .viewFromNode(new EntityView(bg, RenderLayer.BACKGROUND))
                 .buildAndAttach(getGameWorld());
 
         //create player
-        player = EntityFactory.newPlayer(positionX, positionY, 25);
+        player = EntityFactory.newPlayer(state.getPositionX(), state.getPositionY(), 25);
         getGameWorld().addEntity(player);
         playerC = player.getControlUnsafe(PlayerControl.class);
 
@@ -202,8 +396,11 @@ public class Lunar_lander extends GameApplication {
      */
     @Override
     protected void initPhysics() {
-        getPhysicsWorld().setGravity(0, 0);
         PhysicsWorld physicsWorld = getPhysicsWorld();
+        //the same pull as the lander gets, in meters per second squared
+        double ticks = SimulationRunner.DEFAULT_RATE;
+        physicsWorld.setGravity(0, physicsWorld.toMeters(sim.getGravity() * ticks * ticks));
+        deferred.add(() -> debris = new DebrisPool(physicsWorld, getGameWorld(), windowHight));
     }
 
     /**
@@ -211,52 +408,37 @@ public class Lunar_lander extends GameApplication {
      */
     @Override
     protected void initUI() {
-        this.throttle = new SimpleIntegerProperty(0);
-
-        boundsText = getUIFactory().newText("", Color.RED, 50);
-
-        //create landing points with score
-        createLandingPoints(landPoints);
-
-        //create and bind the the throttle % to text on the GUI
-        Text throttleText = getUIFactory().newText("", Color.WHITE, 18);
-        throttleText.setTranslateX(800);
-        throttleText.setTranslateY(150);
-        throttleText.textProperty().bind(throttle.asString("Throttle: %d%%"));
-        getGameScene().addUINodes(throttleText);
-
-        //create and bind the the fuel left to text on the GUI
-        Text fuelText = getUIFactory().newText("", Color.WHITE, 18);
-        fuelText.setTranslateX(800);
-        fuelText.setTranslateY(100);
-        fuelText.textProperty().bind(fuel.asString("Fuel: %g"));
-        getGameScene().addUINodes(fuelText);
-
-        //create and bind the the score to text on the GUI
-        Text ScoreText = getUIFactory().newText("", Color.WHITE, 18);
-        ScoreText.setTranslateX(800);
-        ScoreText.setTranslateY(50);
-        ScoreText.textProperty().bind(score.asString("Score: %d"));
-        getGameScene().addUINodes(ScoreText);
-
-        //create and bind the the lives to text on the GUI
-        Text LivesText = getUIFactory().newText("", Color.WHITE, 18);
-        LivesText.setTranslateX(800);
-        LivesText.setTranslateY(200);
-        LivesText.textProperty().bind(lives.asString("Lives: %d"));
-        getGameScene().addUINodes(LivesText);
-
-        //create and bind the the lives to text on the GUI
-        xVelText = getUIFactory().newText("X-velocity = ", Color.WHITE, 18);
-        xVelText.setTranslateX(50);
-        xVelText.setTranslateY(50);
-        getGameScene().addUINodes(xVelText);
-
-        //create and bind the the lives to text on the GUI
-        yVelText = getUIFactory().newText("Y-velocity = ", Color.WHITE, 18);
-        yVelText.setTranslateX(50);
-        yVelText.setTranslateY(100);
-        getGameScene().addUINodes(yVelText);
+        //all ghosts are drawn on one canvas
+        ghostLayer = new GhostLayer(windowWidth, windowHight, Assets.getImage(Assets.LANDER));
+        getGameScene().addUINodes(ghostLayer.getNode());
+
+        //particles that land on the ground, all drawn in to one image
+        if (particles != null) {
+            particleLayer = new ParticleLayer(windowWidth, windowHight);
+            getGameScene().addUINodes(particleLayer.getNode());
+        }
+        //the ghosts and the minimap can show up a few frames late
+        deferred.add(this::startGhosts);
+        deferred.add(this::makeMinimap);
+
+        //create the throttle, fuel, score, lives and velocity text on the GUI
+        hud = new Hud(getUIFactory(), Integer.getInteger("lander.hud.hz", Hud.DEFAULT_REFRESH_RATE));
+        getGameScene().addUINodes(hud.getNodes());
+
+        //banners and the game over screen, made once and shown when needed
+        overlays = new Overlays(getUIFactory(), windowWidth, windowHight);
+        getGameScene().addUINodes(overlays.getNodes());
+
+        //everything is set up, let the simulation go
+        runner.setAfterTick(this::afterTick);
+        runner.setSpeed(Double.parseDouble(System.getProperty("lander.speed", "1")));
+        runner.start();
+        if (flightRecorder != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                runner.stop();
+                flightRecorder.close();
+            }));
+        }
     }
 
     /**
@@ -275,6 +457,9 @@ public class Lunar_lander extends GameApplication {
         settings.setCloseConfirmation(false);
         settings.setProfilingEnabled(true);
         settings.setApplicationMode(ApplicationMode.DEVELOPER);
+
+        //decode the images while FXGL starts up
+        Assets.preload(Assets.LANDER);
     }
 
     /**
@@ -284,329 +469,203 @@ public class Lunar_lander extends GameApplication {
      */
     @Override
     protected void onUpdate(double d) {
+        trace.beginFrame();
+        //only time the parts of the frame while a recording wants them
+        boolean timed = trace.isFrameTimed();
+        long readNanos = 0, ghostNanos = 0, particleNanos = 0;
+
+        governor.frame(System.nanoTime());
+        if (firstFrame) {
+            firstFrame = false;
+            startupDone();
+        } else if (!deferred.isEmpty()) {
+            deferred.poll().run();
+        }
+        if (levelBrowser != null && levelBrowser.isShowing()) {
+            levelBrowser.update();
+        }
 
-        //Update the velosity on the GUI
-        xVelText.setText("X-velocity = " + (int) (velocityX * 100)); //<editor-fold>
-        yVelText.setText("Y-velocity = " + (int) (velocityY * 100));
+        //hold the game while the game over screen is up
+        overlays.update();
+        if (overlays.isGameOverShowing()) {
+            //the numbers behind the game over screen are the new game's
+            state = runner.read();
+            hud.update(state);
+            return;
+        }
+        if (heldForGameOver) {
+            heldForGameOver = false;
+            runner.resume();
+        }
 
-        //set the color to green if the velocity is acceptable for landing
-        if (Math.abs(velocityX) + Math.abs(velocityY) < maxLandingVelocity) {
-            yVelText.fillProperty().set(Color.LIGHTGREEN);
-            xVelText.fillProperty().set(Color.LIGHTGREEN);
-        } else {
-            yVelText.fillProperty().set(Color.WHITE);
-            xVelText.fillProperty().set(Color.WHITE);
-        }//</editor-fold>
-
-        //Burn if crashed & dig in to ground to give a crashed look
-        if (crashed) {  //<editor-fold>
-            if (hasLandedDelay > 0) { //run 10 times on loop update
-                hasLandedDelay--;
-                positionX += velocityX;
-                positionY += velocityY;
-                playerC.SetXY(positionX, positionY);
-            }
-        }   //</editor-fold>
+        //Take the newest state and catch up on what happened since the last
+        long mark = timed ? System.nanoTime() : 0;
+        state = runner.read();
+        runner.dispatch(state, this);
+        if (state.getRound() == appliedRound && state.getScroll() != appliedScroll) {
+            onScroll(state.getScroll() - appliedScroll);
+            appliedScroll = state.getScroll();
+        }
 
-        //Resets game 
-        if (onGround()) {// <editor-fold>
-            if (delayTimerActive > 0) { //Run after a delay
-                delayTimerActive--;
-            } else {
-                if (lives.get() < 1 || fuel.get() < 0.1) {  //game over if out of fuel or lives
-                    JOptionPane.showMessageDialog(null, "Your final score was " + score.get(), " " + "", JOptionPane.INFORMATION_MESSAGE);
-                    resetGame(true);
-                } else {                //if not game over
-                    resetGame(false);
-                }
-                getGameScene().removeUINode(LandedText);
-            }
-        } //</editor-fold>
-
-        //When flying
-        if (!onGround()) { //<editor-fold>
-
-            //Calulate velocities and position
-            if (fuel.get() > 0) {//if there is fuel remaining <editor-fold>
-                double tempX = (float) Math.cos(Math.toRadians(rotation + 90));
-                double tempY = (float) Math.sin(Math.toRadians(rotation + 90));
-                velocityX += (-(double) throttle.get() / 100) * tempX * maxThrust;
-                velocityY += (-(double) throttle.get() / 100) * tempY * maxThrust;
-                thrustFX(throttle.get());
-                useFuel(throttle.get());
-            }//</editor-fold>
-
-            //Find curernt position
-            positionX += velocityX;
-            positionY += velocityY;
-
-            /*  Check if landed or crashed  
-            *   landed if on flat ground and velcity is low
-            *   crashed if not on flat ground or velcity is too high
-             */
-            if (checkHighFromLand(positionX, positionY, landPositionX, landPoints) < 25) { // if on or below land <editor-fold>
-                if (findLandFlat(positionX, landPositionX, landPoints)
-                        && Math.abs(velocityX) + Math.abs(velocityY) < maxLandingVelocity) {
-                    //Landing was successful
-                    landed = true;
-                    throttle.set(0);
-                    int scoreToAddTemp = getLandingScore(positionX, landPositionX, landPoints);
-                    score.set(score.get() + scoreToAddTemp);
-                    System.out.print("there");
-
-                    //Creates successful Landing text
-                    LandedText = getUIFactory().newText("Successful Landing " + scoreToAddTemp + " Points", Color.GREEN, 50);
-                    LandedText.setTranslateX(50);
-                    LandedText.setTranslateY(300);
-                    getGameScene().addUINodes(LandedText);
-
-                    //Restart game after delay
-                    delayTimerActive = delayTime;
-
-                } else {
-                    //Landing was unsuccessful
-                    crashed = true;
-                    crashFX(100);
-                    lives.set(lives.get() - 1);
-
-                    //Creates unsuccessful Landing text
-                    LandedText = getUIFactory().newText("Unsuccessful Landing", Color.RED, 50);
-                    getGameScene().addUINodes(LandedText);
-                    LandedText.setTranslateX(200);
-                    LandedText.setTranslateY(300);
-
-                    //Restart game after delay
-                    delayTimerActive = delayTime;
-                }//</editor-fold>
-            }
+        //set positions
+        playerC.SetXY(state.getPositionX(), state.getPositionY());
+        playerC.rotateTo(state.getRotation());
 
-            //Edge scrolling when in the most left and right 1/6ths of the screen
-            if (positionX > (windowWidth - windowWidth / 6)) { //<editor-fold>
-                //Move land and Objects attached to 
-                landPositionX += ((windowWidth / 6) - (windowWidth - positionX));
-                landC.Move(-velocityX, 0.0);
-                updateBounds(-velocityX);
-                updateLandingPoints(-velocityX);
+        if (timed) {
+            long now = System.nanoTime();
+            readNanos = now - mark;
+            mark = now;
+        }
 
-                //Dont move player
-                positionX -= (windowWidth / 6) - (windowWidth - positionX);
-                playerC.MoveXY(-velocityX, 0);
+        //move the ghosts along
+        ghostLayer.render(state.getRoundTick(), state.getLandPositionX());
+        if (timed) {
+            long now = System.nanoTime();
+            ghostNanos = now - mark;
+            mark = now;
+        }
 
-            }
-            if (positionX < (windowWidth / 6)) {
-                //Move land and Objects attached to 
-                landPositionX -= (windowWidth / 6) - positionX;
-                landC.Move(-velocityX, 0.0);
-                updateBounds(-velocityX);
-                updateLandingPoints(-velocityX);
-
-                //Dont move player
-                positionX += (windowWidth / 6) - positionX;
-                playerC.MoveXY(-velocityX, 0);
-            }//</editor-fold>
-
-            //gravity
-            velocityY += gravity;
-
-            //smooth roatation
-            rotation += rotationalVelocity;
-
-            //set positions
-            playerC.SetXY(positionX, positionY);
-            playerC.rotateTo(rotation);
-
-            //check if going out of the world
-            if ((landPositionX > 1300 || landPositionX < 150) && !boundsTextAdded && !onGround()) { //<editor-fold>
-                boundsText = getUIFactory().newText("Turn Around", Color.RED, 50);
-                boundsText.setTranslateX(300);
-                boundsText.setTranslateY(400);
-                getGameScene().addUINodes(boundsText);
-                boundsTextAdded = true;
-            } else if (boundsTextAdded) {
-                getGameScene().removeUINode(boundsText);
-                boundsTextAdded = false;
-            }
-            if (landPositionX > 1600 || landPositionX < -150) {
-                lives.set(lives.get() - 1);
-                if (lives.get() < 1 || fuel.get() < 0.1) {  //game over if out of fuel or lives
-                    JOptionPane.showMessageDialog(null, "Your final score was " + score.get(), " " + "", JOptionPane.INFORMATION_MESSAGE);
-                    resetGame(true);
-                } else { //if not game over
-                    resetGame(false);
-                }
-            }//</editor-fold>
-        }//</editor-fold>
+        //move the particles that collide with the land
+        if (debris != null) {
+            debris.update();
+        }
+        if (particles != null) {
+            particles.update(state.getTerrain(), windowHight);
+            particleLayer.render(particles, state.getLandPositionX());
+        }
+        if (timed) {
+            long now = System.nanoTime();
+            particleNanos = now - mark;
+            mark = now;
+        }
+
+        //Update the numbers on the GUI, only changed ones are redrawn
+        if (minimap != null) {
+            minimap.update(state.getLandPositionX(), state.getLandPositionX() + state.getPositionX() + 12.5,
+                    state.getPositionY() + 12.5);
+        }
+        hud.update(state);
+
+        if (timed) {
+            trace.endFrame(state.getTick(), readNanos, ghostNanos, particleNanos, System.nanoTime() - mark);
+        }
     }
 
     /**
+     * Adds thrust particles while the engine burns
      *
-     * @param x The X position of the lander
-     * @param lx The X position of the land
-     * @param land The ground file in int[] format
-     * @return Returns the Points to the left and 
+     * @param throttle The throttle value from 0 - 100
      */
-    private int[] findLandPoints(double x, double lx) {
-        int[] points = new int[2];
-        double relativeLandPos = lx + x + 12.5;
-        points[0] = (int) (Math.ceil((relativeLandPos / 10)) * 2) + 3;
-        points[1] = (int) (Math.floor((relativeLandPos / 10)) * 2) + 3;
-        return points;
+    @Override
+    public void onThrust(int throttle) {
+        thrustFX(throttle);
     }
 
     /**
+     * Shows the successful Landing banner
      *
-     * @param x The X position of the lander
-     * @param lx The X position of the land
-     * @param land The ground file in int[] format
-     * @return
+     * @param points The score added for the landing
      */
-    private boolean findLandFlat(double x, double lx, Double[] land) {
-        boolean flat = false;
-        int[] points = findLandPoints(x, lx);
-        double temp1, temp2;
-        temp1 = land[points[0]];
-        temp2 = land[points[1]];
-        if (temp1 == temp2) {
-            flat = true;
-        }
-        return flat;
+    @Override
+    public void onLanded(int points) {
+        System.out.print("there");
+        //landings played slowed down or sped up are not ranked
+        if (!runner.isEventDilated()) {
+            leaderboard.submitLanding(playerName, state.getTerrain().getSeed(), points);
+        }
+        touchdown(true, points);
+
+        overlays.showLanded(points);
     }
 
     /**
-     *
-     * @param x The X position of the lander
-     * @param y The Y position of the lander
-     * @param lx The X position of the land
-     * @param land The ground file in int[] format
-     * @return
+     * Shows the unsuccessful Landing banner and an explosion
      */
-    private double checkHighFromLand(double x, double y, double lx, Double[] land) {
-        double dReturn = 0.0;
-        double relativeLandPos = lx + x + 12.5;
-        int point = (int) (relativeLandPos / 10) * 2 + 3;
-        dReturn = windowHight - (y - land[point]);
-        return dReturn;
+    @Override
+    public void onCrashed() {
+        touchdown(false, 0);
+        crashFX(100);
+        breakUp();
+        overlays.showCrashed();
     }
 
     /**
-     *
-     * @param x The X position of the lander
-     * @param lx The X position of the land
-     * @param land The ground file in int[] format
-     * @return
+     * Records the landing or crash for the flight recorder, the velocity is
+     * the one of the newest state
      */
-    private double checkHighFromLand(double x, double lx, Double[] land) {
-        double dReturn = 0.0;
-        double relativeLandPos = lx + x + 12.5;
-        int point = (int) (relativeLandPos / 10) * 2 + 3;
-        dReturn = windowHight - (-land[point]);
-        return dReturn;
+    private void touchdown(boolean landed, int points) {
+        trace.touchdown(landed, state.getVelocityX(), state.getVelocityY(), points, state.getTerrain().getSeed());
     }
 
     /**
-     * Moves all landing points along the x axis. Used to give a scrolling
-     * effect
+     * Move land and Objects attached to it
      *
-     * @param x Amount to move all landingPoints GUI Text elements
+     * @param x Amount to move by
      */
-    private void updateLandingPoints(double x) {
-        for (int y = 0; y < landingPoints.size(); y++) {
-            landingPoints.get(y).setTranslateX(
-                    landingPoints.get(y).getTranslateX() + x);
-        }
+    @Override
+    public void onScroll(double x) {
+        landC.Move(x, 0.0);
+        terrainLayer.scroll(x);
+        updateBounds(x);
+        landingLabels.scroll(x);
     }
 
     /**
      *
-     * @param x
+     * @param show If the Turn Around warning should be shown
      */
-    private void updateBounds(double x) {
-        for (int y = 0; y < outOfWorldC.size(); y++) {
-            outOfWorldC.get(y).MoveXY(x, 0.0);
-        }
+    @Override
+    public void onBoundsWarning(boolean show) {
+        overlays.showWarning(show);
     }
 
     /**
      *
-     * @param land The ground file in int[] format
+     * @param gameOver If the round ended the game
+     * @param finalScore The score before the reset
      */
-    private void createLandingPoints(Double[] land) {
-        boolean wasFlat = false;
-        int wasFlatCount = 0;
-
-        for (int x = 0; x < EntityFactory.getLandWidth() / 10; x++) {
-            double temp1, temp2;
-            temp1 = land[(x * 2) + 3];
-            temp2 = land[(x * 2) + 5];
-            int maxScore = 100;
-            if (temp1 == temp2) {
-                wasFlat = true;
-                wasFlatCount++;
-            } else {
-                if (wasFlatCount > 1) {
-                    Text LandingScoreText = getUIFactory().newText(Integer.toString(maxScore / wasFlatCount), Color.WHITE, 15);
-                    LandingScoreText.setTranslateX(((((x - 1) * 10) - 1240) + windowWidth / 2) - wasFlatCount * 5);
-                    LandingScoreText.setTranslateY(checkHighFromLand(((x * 10) - 1250), 1240, land) - 5);
-                    getGameScene().addUINodes(LandingScoreText);
-                    landingPoints.add(LandingScoreText);
-                }
-                wasFlatCount = 0;
+    @Override
+    public void onRoundReset(boolean gameOver, int finalScore) {
+        if (gameOver) {
+            if (!runner.isEventDilated()) {
+                leaderboard.submitGame(playerName, finalScore);
             }
-
+            Leaderboard global = leaderboard.getGlobal();
+            overlays.showGameOver(finalScore, global.rankOf(finalScore), global.size());
+            round = 1;
+            heldForGameOver = true;
+        } else {
+            round++;
+            overlays.showSummary(round, state.getScore(), state.getLives());
         }
-
+        startRound(gameOver, finalScore);
     }
 
     /**
-     *
-     * @param x The X position of the lander
-     * @param lx The X position of the land
-     * @param land The ground file in int[] format
-     * @return The score for landing at a given X-coordinate
+     * A new game on land picked in the level browser, nothing is ranked
      */
-    private int getLandingScore(double x, double lx, Double[] land) {
-        int[] points = new int[2];
-        double relativeLandPos = lx + x + 12.5;
-        int FlatCountR = 0;
-        int FlatCountL = 0;
-
-        points[0] = (int) (Math.ceil((relativeLandPos / 10)) * 2) + 3;
-        points[1] = (int) (Math.floor((relativeLandPos / 10)) * 2) + 3;
-
-        double temp1, temp2;
-        temp1 = land[points[0] + 2];
-        temp2 = land[points[1] + 2];
-
-        while (temp1 == temp2) {
-            FlatCountR++;
-            temp1 = land[points[0] + 2 + (2 * FlatCountR)];
-            temp2 = land[points[1] + 2] + (2 * FlatCountR);
-        }
-
-        temp1 = land[points[0] - 2];
-        temp2 = land[points[1] - 2];
-        while (temp1 == temp2) {
-            FlatCountL++;
-            temp1 = land[points[0] - 2 - (2 * FlatCountL)];
-            temp2 = land[points[1] - 2 - (2 * FlatCountL)];
-        }
+    @Override
+    public void onNewGame() {
+        round = 1;
+        overlays.showSummary(round, state.getScore(), state.getLives());
+        startRound(false, 0);
+    }
 
-        return 100 / (FlatCountR + FlatCountL + 1);
+    private void startRound(boolean gameOver, int finalScore) {
+        resetGame(gameOver, finalScore);
+        appliedRound = state.getRound();
+        appliedScroll = 0;
+        startGhosts();
+        overlays.hideBanner();
     }
 
     /**
-     * Uses fuel based on the current value of the throttle
      *
-     * @param throttle The throttle value from 0 - 100
+     * @param x
      */
-    private void useFuel(int throttle) {
-        double fuelTemp = Math.floor((float) fuel.get() - (float) throttle / 20);
-
-        if (fuelTemp > 0) {
-            fuel.set(fuelTemp);
-        } else {
-            fuel.set(0);
-
+    private void updateBounds(double x) {
+        for (int y = 0; y < outOfWorldC.size(); y++) {
+            outOfWorldC.get(y).MoveXY(x, 0.0);
         }
     }
 
@@ -616,69 +675,168 @@ public class Lunar_lander extends GameApplication {
      * @param throttle The throttle value from 0 - 100
      */
     private void thrustFX(int throttle) {
+        trace.beginBurst();
         double posX = 0, posY = 0;
         if (Math.ceil((float) throttle / 20) > 0) {
-            float tempX = (float) Math.cos(Math.toRadians((rotation + 90)));
-            float tempY = (float) Math.sin(Math.toRadians((rotation + 90)));
-            posX = (positionX + 12.5) + (tempX * 6.25);
-            posY = (positionY + 12.5) + (tempY * 6.25);
+            float tempX = (float) Math.cos(Math.toRadians((state.getRotation() + 90)));
+            float tempY = (float) Math.sin(Math.toRadians((state.getRotation() + 90)));
+            posX = (state.getPositionX() + 12.5) + (tempX * 6.25);
+            posY = (state.getPositionY() + 12.5) + (tempY * 6.25);
 
         }
-        for (int x = 0; x < Math.ceil((float) throttle / 20); x++) {
+        int wanted = (int) Math.ceil((float) throttle / 20);
+        int count = governor.allow(wanted);
+        for (int x = 0; x < count; x++) {
+            double life = governor.life(250 + Math.random() * 500);
+            if (particles != null) {
+                double angle = Math.toRadians(state.getRotation() + 60 + Math.random() * 60);
+                double speed = 2 + Math.random() - .5;
+                particles.add(posX + state.getLandPositionX(), posY, speed * Math.cos(angle), speed * Math.sin(angle),
+                        (int) (life * 60 / 1000), 0xFFF5F5F5, 2);
+                continue;
+            }
             Entity thrustFX = EntityFactory.particalFX(posX, posY, Color.WHITESMOKE);
             getGameWorld().addEntity(thrustFX);
-            thrustFX.addControl(new ExpireCleanControl(Duration.millis(250 + Math.random() * 500)));
+            thrustFX.addControl(new ExpireCleanControl(Duration.millis(life)));
             particleFXC = thrustFX.getControlUnsafe(ParticleControl.class);
-            particleFXC.setRotation(rotation);
+            particleFXC.setRotation(state.getRotation());
+        }
+        trace.endBurst(false, wanted, count, governor.getLevel());
+    }
+
+    /**
+     * Swaps the lander for debris knocked along the land. Only the land near
+     * the crash gets a body, it is removed with the rest of the land on the
+     * next reset.
+     */
+    private void breakUp() {
+        if (debris == null) {
+            return;
         }
+        //where the land entity is once this state's scrolling is applied, the
+        //simulation does not scroll again until the round resets
+        double landStart = -state.getLandXOffSet() + state.getScroll();
+        double x = state.getPositionX() + 12.5;
+        getGameWorld().addEntity(EntityFactory.newGround(state.getTerrain(), landStart, windowHight,
+                x - landStart - 300, x - landStart + 300));
+        debris.burst(x, state.getPositionY() + 12.5, state.getVelocityX(), state.getTerrain(), landStart);
+        //the simulation still slides the lander for a few ticks, out of sight
+        playerC.setVisible(false);
     }
 
     /**
      * Creates an explosion of particles around the lander
      */
-    private void crashFX(int particles) {
-        for (int x = 0; x < particles; x++) {
-            Entity crashFX = EntityFactory.particalCrashFX(positionX + 12.5, positionY + 12.5, Color.rgb(255 - (int) (Math.random() * 75), 0, 0));
+    private void crashFX(int particleCount) {
+        trace.beginBurst();
+        int count = governor.allow(particleCount);
+        for (int x = 0; x < count; x++) {
+            double life = governor.life(2000 + Math.random() * 1000);
+            if (particles != null) {
+                double angle = Math.random() * Math.PI * 2;
+                double speed = Math.random() * 2 - 1;
+                int red = 255 - (int) (Math.random() * 75);
+                particles.add(state.getPositionX() + 12.5 + state.getLandPositionX(), state.getPositionY() + 12.5,
+                        speed * Math.cos(angle), speed * Math.sin(angle), (int) (life * 60 / 1000),
+                        0xFF000000 | red << 16, 1 + (int) (Math.random() * 2));
+                continue;
+            }
+            Entity crashFX = EntityFactory.particalCrashFX(state.getPositionX() + 12.5, state.getPositionY() + 12.5, Color.rgb(255 - (int) (Math.random() * 75), 0, 0));
             getGameWorld().addEntity(crashFX);
-            crashFX.addControl(new ExpireCleanControl(Duration.millis(2000 + Math.random() * 1000)));
+            crashFX.addControl(new ExpireCleanControl(Duration.millis(life)));
             crashFXC = crashFX.getControlUnsafe(ParticleCrashControl.class);
         }
+        trace.endBurst(true, particleCount, count, governor.getLevel());
     }
 
     /**
-     * Check if lander has landed or crashed
-     *
-     * @return Boolean is on the ground
+     * Reports how long the game took to start
      */
-    private boolean onGround() {
-        return landed || crashed;
+    private void startupDone() {
+        if (Boolean.getBoolean("lander.startup.benchmark")) {
+            System.out.printf("Started in %.1f ms%n", (System.nanoTime() - launched) / 1e6);
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Makes the minimap of the current land, lands after it are set in
+     * makeLand
+     */
+    private void makeMinimap() {
+        minimap = new Minimap(250, 40, windowWidth, windowHight);
+        minimap.getNode().setTranslateX((windowWidth - 250) / 2);
+        minimap.getNode().setTranslateY(10);
+        getGameScene().addUINodes(minimap.getNode());
+        minimap.setTerrain(state.getTerrain());
+    }
+
+    /**
+     * Loads the best runs on the current land
+     */
+    private void startGhosts() {
+        long seed = state.getTerrain().getSeed();
+        ghostLayer.reset(seed);
+        ghostStore.load(seed, maxGhosts, ghostLayer::add);
+    }
+
+    /**
+     * Runs on the simulation thread after every tick
+     */
+    private void afterTick() {
+        recordGhost();
+        if (flightRecorder != null) {
+            flightRecorder.record(sim, runner.getTickInput());
+        }
+    }
+
+    /**
+     * Records this run, runs on the simulation thread after every tick. Runs
+     * that land are saved as ghosts of the land.
+     */
+    private void recordGhost() {
+        if (ghostRound != runner.getRound()) {
+            ghostRound = runner.getRound();
+            ghostRun = new GhostTrack(sim.getTerrain().getSeed());
+            ghostSaved = false;
+        }
+        if (!sim.onGround()) {
+            ghostRun.add(sim.getLandPositionX() + sim.getPositionX(), sim.getPositionY(), sim.getRotation());
+        } else if (sim.isLanded() && !ghostSaved) {
+            ghostSaved = true;
+            //a ghost of a run at another speed would not match a real one
+            if (!runner.isRoundDilated()) {
+                ghostRun.setScore(sim.getTerrain().getLandingScore(sim.getLandX()));
+                ghostStore.save(ghostRun);
+            }
+        }
     }
 
     /**
      *
      */
     private void makeLand(boolean respawining) {
+        trace.beginLand();
+
         //create land
-        landXOffSet = EntityFactory.getLandWidth() / 2 - windowWidth / 2;
+        landXOffSet = state.getLandXOffSet();
 
-        if (land != null) {
-            land.removeFromWorld();
+        EntityFactory.getRegistry().removeAll(EntityType.LAND);
 
-            landingPoints.clear();
-            createLandingPoints(EntityFactory.getLand());
-        }
-
-        landPositionX = landXOffSet;
-        land = EntityFactory.newLand(-landXOffSet, windowHight);
+        land = EntityFactory.newLand(terrainLayer, state.getTerrain(), -landXOffSet, windowHight);
         getGameWorld().addEntity(land);
         landC = land.getControlUnsafe(LandControl.class);
-        landPoints = EntityFactory.getLand();
 
-        for (int x = 0; x < landingPoints.size(); x++) {
-            getGameScene().removeUINode(landingPoints.get(x));
+        if (landingLabels == null) {
+            landingLabels = new LandingLabels(getUIFactory(), getGameScene(), windowWidth, windowHight);
         }
+        landingLabels.setTerrain(state.getTerrain(), -landXOffSet);
 
-        createLandingPoints(EntityFactory.getLand());
+        if (minimap != null) {
+            minimap.setTerrain(state.getTerrain());
+        }
+
+        trace.endLand(state.getTerrain());
 
         //create out of bounds areas
         if (!respawining) {
@@ -712,28 +870,17 @@ public class Lunar_lander extends GameApplication {
     /**
      *
      */
-    private void resetGame(boolean gameOver) {
-        throttle.set(0);
-        positionX = 200;
-        positionY = 100;
-        velocityX = Math.random();
-        velocityY = 0;
-        rotationalVelocity = 0;
-        rotation = 0;
-        landed = false;
-        crashed = false;
-        hasLandedDelay = 5;
-        landPositionX = 0;
+    private void resetGame(boolean gameOver, int finalScore) {
+        trace.beginRoundReset();
 
-        if (gameOver) {
-            score.set(0);
-            lives.set(2);
-            fuel.set(10000);
+        if (particles != null) {
+            particles.clear();
         }
-
-        for (int x = 0; x < landingPoints.size(); x++) {
-            getGameScene().removeUINode(landingPoints.get(x));
+        EntityFactory.getRegistry().removeAll(EntityType.PARTICLE);
+        if (debris != null) {
+            debris.clear();
         }
+        playerC.setVisible(true);
 
         makeLand(true);
 
@@ -756,5 +903,7 @@ public class Lunar_lander extends GameApplication {
             }
 
         }
+
+        trace.endRoundReset(gameOver, round, finalScore);
     }
 }
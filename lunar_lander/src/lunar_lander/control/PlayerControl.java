@@ -25,6 +25,7 @@ package lunar_lander.control;
 
 import com.almasb.ents.AbstractControl;
 import com.almasb.ents.Entity;
+import com.almasb.fxgl.entity.component.MainViewComponent;
 import com.almasb.fxgl.entity.component.PositionComponent;
 import com.almasb.fxgl.entity.component.RotationComponent;
 import com.almasb.fxgl.physics.PhysicsComponent;
@@ -39,6 +40,7 @@ public class PlayerControl extends AbstractControl {
     protected PositionComponent position;
     protected PhysicsComponent player;
     protected RotationComponent rotation;
+    protected MainViewComponent view;
 
     /**
      * 
@@ -49,6 +51,7 @@ public class PlayerControl extends AbstractControl {
         player = entity.getComponentUnsafe(PhysicsComponent.class);
         position = entity.getComponentUnsafe(PositionComponent.class);
         rotation = entity.getComponentUnsafe(RotationComponent.class);
+        view = entity.getComponentUnsafe(MainViewComponent.class);
 
     }
 
@@ -88,4 +91,12 @@ public class PlayerControl extends AbstractControl {
         position.setValue(x, y);
     }
 
+    /**
+     * 
+     * @param visible False while the lander lies in pieces after a crash
+     */
+    public void setVisible(boolean visible) {
+        view.getView().setVisible(visible);
+    }
+
 }
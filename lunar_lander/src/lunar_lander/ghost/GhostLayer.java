@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ghost;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+
+/**
+ * Draws every ghost of the current round on one Canvas, so the scene graph
+ * holds a single node however many ghosts are racing.
+ *
+ * @author Mack
+ */
+public class GhostLayer {
+
+    private static final double SIZE = 25;
+
+    private final Canvas canvas;
+    private final GraphicsContext g;
+    private final Image lander;
+
+    private final ArrayList<GhostTrack> ghosts = new ArrayList<>();
+    private final ConcurrentLinkedQueue<GhostTrack> incoming = new ConcurrentLinkedQueue<>();
+    private final float[] sample = new float[3];
+
+    private long seed;
+    private boolean drawn = false;
+
+    /**
+     *
+     * @param width Width of the window
+     * @param height Height of the window
+     * @param lander Image to draw the ghosts with
+     */
+    public GhostLayer(double width, double height, Image lander) {
+        this.canvas = new Canvas(width, height);
+        this.g = canvas.getGraphicsContext2D();
+        this.lander = lander;
+        canvas.setMouseTransparent(true);
+    }
+
+    /**
+     * Removes all ghosts, tracks of other seeds that are still loading are
+     * dropped when they arrive
+     *
+     * @param seed Seed of the new land
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        ghosts.clear();
+        incoming.clear();
+    }
+
+    /**
+     * Can be called from any thread
+     *
+     * @param track Track to race against
+     */
+    public void add(GhostTrack track) {
+        incoming.add(track);
+    }
+
+    /**
+     * Redraws all ghosts
+     *
+     * @param tick Ticks since the start of the round, may be fractional
+     * @param landPositionX The scroll position of the land
+     */
+    public void render(double tick, double landPositionX) {
+        GhostTrack track;
+        while ((track = incoming.poll()) != null) {
+            if (track.getSeed() == seed) {
+                ghosts.add(track);
+            }
+        }
+        if (ghosts.isEmpty() && !drawn) {
+            return;
+        }
+
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        g.setGlobalAlpha(0.35);
+        for (int x = 0; x < ghosts.size(); x++) {
+            if (!ghosts.get(x).sample(tick, sample)) {
+                continue;
+            }
+            double screenX = sample[0] - landPositionX;
+            if (screenX < -SIZE || screenX > canvas.getWidth()) {
+                continue;
+            }
+            g.save();
+            g.translate(screenX + SIZE / 2, sample[1] + SIZE / 2);
+            g.rotate(sample[2]);
+            g.drawImage(lander, -SIZE / 2, -SIZE / 2, SIZE, SIZE);
+            g.restore();
+        }
+        g.setGlobalAlpha(1);
+        drawn = !ghosts.isEmpty();
+    }
+
+    public Canvas getNode() {
+        return canvas;
+    }
+
+    /**
+     *
+     * @return Number of ghosts in the current round
+     */
+    public int getGhostCount() {
+        return ghosts.size();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ghost;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Keeps recorded runs on disk, one folder per land seed. Tracks are loaded
+ * on a background thread and handed over one by one as they are read.
+ *
+ * @author Mack
+ */
+public class GhostStore {
+
+    private final Path directory;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Ghost Loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     *
+     * @param directory Folder holding the seed folders
+     */
+    public GhostStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Uses the ghosts folder in the working directory
+     */
+    public GhostStore() {
+        this(Paths.get("ghosts"));
+    }
+
+    /**
+     * Saves a finished run in the background
+     *
+     * @param track The track to save
+     */
+    public void save(GhostTrack track) {
+        loader.execute(() -> {
+            try {
+                Path folder = directory.resolve(Long.toString(track.getSeed()));
+                Files.createDirectories(folder);
+                track.write(folder.resolve(track.getScore() + "-" + System.currentTimeMillis() + ".ghost"));
+            } catch (IOException e) {
+                System.out.println("Could not save ghost: " + e);
+            }
+        });
+    }
+
+    /**
+     * Reads the best runs of a seed in the background
+     *
+     * @param seed Seed of the land
+     * @param max Most tracks to load, the highest scores first
+     * @param onLoaded Called on the loader thread for every track read
+     */
+    public void load(long seed, int max, Consumer<GhostTrack> onLoaded) {
+        loader.execute(() -> {
+            Path folder = directory.resolve(Long.toString(seed));
+            if (!Files.isDirectory(folder)) {
+                return;
+            }
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*.ghost")) {
+                for (Path file : stream) {
+                    files.add(file);
+                }
+            } catch (IOException e) {
+                System.out.println("Could not list ghosts: " + e);
+                return;
+            }
+            files.sort((a, b) -> Integer.compare(scoreOf(b), scoreOf(a)));
+
+            for (int x = 0; x < files.size() && x < max; x++) {
+                try {
+                    onLoaded.accept(GhostTrack.read(files.get(x)));
+                } catch (IOException e) {
+                    System.out.println("Could not read ghost: " + e);
+                }
+            }
+        });
+    }
+
+    /**
+     * The score is the start of the file name so files can be ranked without
+     * opening them
+     */
+    private static int scoreOf(Path file) {
+        String name = file.getFileName().toString();
+        int dash = name.indexOf('-');
+        try {
+            return Integer.parseInt(dash < 0 ? name : name.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ghost;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The recorded path of one run. Samples are kept in a single float array as
+ * x, y, rotation triples, one per tick, with x relative to the start of the
+ * land.
+ *
+ * @author Mack
+ */
+public class GhostTrack {
+
+    private static final int MAGIC = 0x47485354; //GHST
+    private static final int VERSION = 1;
+
+    /**
+     * Longest run that is recorded, 5 minutes at 60HZ
+     */
+    public static final int MAX_TICKS = 60 * 60 * 5;
+
+    private final long seed;
+    private int score;
+    private float[] samples;
+    private int count;
+
+    /**
+     * Creates an empty track to record in to
+     *
+     * @param seed Seed of the land the run is on
+     */
+    public GhostTrack(long seed) {
+        this(seed, 0, new float[60 * 3 * 10], 0);
+    }
+
+    private GhostTrack(long seed, int score, float[] samples, int count) {
+        this.seed = seed;
+        this.score = score;
+        this.samples = samples;
+        this.count = count;
+    }
+
+    /**
+     * Adds the position of the next tick
+     *
+     * @param x The X position relative to the start of the land
+     * @param y The Y position
+     * @param rotation The rotation in degrees
+     */
+    public void add(double x, double y, double rotation) {
+        if (count >= MAX_TICKS) {
+            return;
+        }
+        if (count * 3 + 3 > samples.length) {
+            samples = Arrays.copyOf(samples, Math.min(samples.length * 2, MAX_TICKS * 3));
+        }
+        samples[count * 3] = (float) x;
+        samples[count * 3 + 1] = (float) y;
+        samples[count * 3 + 2] = (float) rotation;
+        count++;
+    }
+
+    /**
+     * Interpolates the position at a point in time, the last sample is kept
+     * once the track has ended
+     *
+     * @param tick Ticks since the start of the run, may be fractional
+     * @param out Receives x, y and rotation
+     * @return False if the track is empty
+     */
+    public boolean sample(double tick, float[] out) {
+        if (count == 0) {
+            return false;
+        }
+        if (tick < 0) {
+            tick = 0;
+        }
+        int index = (int) tick;
+        if (index >= count - 1) {
+            System.arraycopy(samples, (count - 1) * 3, out, 0, 3);
+            return true;
+        }
+        float f = (float) (tick - index);
+        int a = index * 3;
+        out[0] = samples[a] + (samples[a + 3] - samples[a]) * f;
+        out[1] = samples[a + 1] + (samples[a + 4] - samples[a + 1]) * f;
+        out[2] = samples[a + 2] + (samples[a + 5] - samples[a + 2]) * f;
+        return true;
+    }
+
+    /**
+     *
+     * @param file File to write the track to
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeInt(score);
+            out.writeInt(count);
+            for (int x = 0; x < count * 3; x++) {
+                out.writeFloat(samples[x]);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param file File written by write
+     * @return The track in the file
+     * @throws IOException if the file can not be read or is not a track
+     */
+    public static GhostTrack read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a ghost track: " + file);
+            }
+            long seed = in.readLong();
+            int score = in.readInt();
+            int count = in.readInt();
+            //header of 24 bytes then three floats per tick
+            if (count < 0 || count > (Files.size(file) - 24) / 12) {
+                throw new IOException("Corrupt ghost track: " + file);
+            }
+            count = Math.min(count, MAX_TICKS);
+            float[] samples = new float[count * 3];
+            for (int x = 0; x < samples.length; x++) {
+                samples[x] = in.readFloat();
+            }
+            return new GhostTrack(seed, score, samples, count);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    /**
+     *
+     * @return Number of recorded ticks
+     */
+    public int getLength() {
+        return count;
+    }
+}
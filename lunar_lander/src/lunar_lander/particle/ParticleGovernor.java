@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.particle;
+
+/**
+ * Keeps the frame rate up by spending fewer particles when frames run long.
+ * The time between frames is averaged, and every EVALUATE_FRAMES frames the
+ * quality level is lowered if the frames are over budget or slowly raised
+ * again while they keep to it. The level scales how many particles are
+ * spawned, how long they live and how many may be alive at once.
+ *
+ * Live particles are counted with a ring of expiry frames, so it works the
+ * same for particle entities, which are removed by FXGL, and for Particles.
+ * Only the FX thread may call it, the getters may be read from any thread
+ * for telemetry.
+ *
+ * @author Mack
+ */
+public class ParticleGovernor {
+
+    public static final double MIN_LEVEL = 0.05;
+    public static final int EVALUATE_FRAMES = 30;
+
+    //longest life a particle is counted for, in frames
+    private static final int RING = 512;
+
+    private final double budgetNanos;
+    private final double frameMillis;
+    private final int maxLive;
+    private final int[] expiring = new int[RING];
+
+    private long lastFrame = 0;
+    private long frame = 0;
+    private double carry = 0;
+
+    private volatile double averageNanos;
+    private volatile double level = 1;
+    private volatile int live = 0;
+    private volatile long dropped = 0;
+    private volatile long lowered = 0;
+    private volatile long raised = 0;
+
+    /**
+     *
+     * @param targetFps Frame rate to hold
+     * @param maxLive Most particles alive at once at full quality
+     */
+    public ParticleGovernor(double targetFps, int maxLive) {
+        this.budgetNanos = 1_000_000_000 / targetFps;
+        this.frameMillis = 1000 / targetFps;
+        this.maxLive = maxLive;
+        this.averageNanos = budgetNanos;
+    }
+
+    /**
+     * Call once at the start of every frame
+     *
+     * @param now System.nanoTime() of the frame
+     */
+    public void frame(long now) {
+        if (lastFrame != 0) {
+            averageNanos += ((now - lastFrame) - averageNanos) * 0.1;
+        }
+        lastFrame = now;
+
+        frame++;
+        int slot = (int) (frame % RING);
+        live -= expiring[slot];
+        expiring[slot] = 0;
+
+        if (frame % EVALUATE_FRAMES == 0) {
+            if (averageNanos > budgetNanos * 1.15 && level > MIN_LEVEL) {
+                level = Math.max(MIN_LEVEL, level * 0.75);
+                lowered++;
+            } else if (averageNanos < budgetNanos * 1.02 && level < 1) {
+                level = Math.min(1, level * 1.2);
+                raised++;
+            }
+        }
+    }
+
+    /**
+     * Scales a number of particles by the level, rounding so the fractions
+     * add up over frames, and keeps within the live budget
+     *
+     * @param wanted Particles the effect would spawn at full quality
+     * @return Particles to spawn
+     */
+    public int allow(int wanted) {
+        carry += wanted * level;
+        int allowed = (int) carry;
+        carry -= allowed;
+
+        int room = Math.max(0, getMaxLive() - live);
+        if (allowed > room) {
+            dropped += allowed - room;
+            allowed = room;
+        }
+        return allowed;
+    }
+
+    /**
+     * Scales the life of a particle by the level and counts it as alive until
+     * it expires
+     *
+     * @param millis Life at full quality
+     * @return Life to give the particle in milliseconds
+     */
+    public double life(double millis) {
+        double scaled = millis * (0.5 + level / 2);
+        int frames = Math.min(RING - 1, Math.max(1, (int) Math.ceil(scaled / frameMillis)));
+        expiring[(int) ((frame + frames) % RING)]++;
+        live++;
+        return scaled;
+    }
+
+    /**
+     *
+     * @return Quality level from MIN_LEVEL to 1
+     */
+    public double getLevel() {
+        return level;
+    }
+
+    /**
+     *
+     * @return Most particles alive at once at the current level
+     */
+    public int getMaxLive() {
+        return (int) (maxLive * level);
+    }
+
+    /**
+     *
+     * @return Particles counted as alive
+     */
+    public int getLive() {
+        return live;
+    }
+
+    /**
+     *
+     * @return Average time between frames in milliseconds
+     */
+    public double getFrameMillis() {
+        return averageNanos / 1_000_000;
+    }
+
+    /**
+     *
+     * @return Particles not spawned because the live budget was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getTimesLowered() {
+        return lowered;
+    }
+
+    public long getTimesRaised() {
+        return raised;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("level %.2f, frame %.2f ms, live %d/%d, dropped %d, lowered %d, raised %d",
+                level, getFrameMillis(), live, getMaxLive(), dropped, lowered, raised);
+    }
+}
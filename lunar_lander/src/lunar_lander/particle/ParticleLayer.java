@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.particle;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Draws all particles in to one image the size of the window, so the scene
+ * graph holds a single node however many particles there are. Only the box
+ * around the particles drawn last frame and this frame is cleared and
+ * uploaded, so a few particles cost a few pixels not the whole window.
+ *
+ * @author Mack
+ */
+public class ParticleLayer {
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private final WritableImage image;
+    private final ImageView view;
+
+    //box holding everything drawn last time, empty if right <= left
+    private int drawnLeft = 0;
+    private int drawnTop = 0;
+    private int drawnRight = 0;
+    private int drawnBottom = 0;
+
+    /**
+     *
+     * @param width Width of the window
+     * @param height Height of the window
+     */
+    public ParticleLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        this.image = new WritableImage(width, height);
+        this.view = new ImageView(image);
+        view.setMouseTransparent(true);
+    }
+
+    /**
+     * Redraws all particles
+     *
+     * @param particles The particles to draw
+     * @param landPositionX The scroll position of the land
+     */
+    public void render(Particles particles, double landPositionX) {
+        int count = particles.count;
+        if (count == 0 && drawnRight <= drawnLeft) {
+            return;
+        }
+
+        //clear what was drawn last time
+        for (int py = drawnTop; py < drawnBottom; py++) {
+            int row = py * width;
+            for (int px = drawnLeft; px < drawnRight; px++) {
+                pixels[row + px] = 0;
+            }
+        }
+
+        int boxLeft = width;
+        int boxTop = height;
+        int boxRight = 0;
+        int boxBottom = 0;
+        for (int p = 0; p < count; p++) {
+            int left = (int) (particles.x[p] - landPositionX);
+            int top = (int) particles.y[p] - particles.size[p];
+            int right = Math.min(width, left + particles.size[p]);
+            int bottom = Math.min(height, top + particles.size[p]);
+            left = Math.max(0, left);
+            top = Math.max(0, top);
+            if (right <= left || bottom <= top) {
+                continue;
+            }
+            int argb = particles.color[p];
+            for (int py = top; py < bottom; py++) {
+                int row = py * width;
+                for (int px = left; px < right; px++) {
+                    pixels[row + px] = argb;
+                }
+            }
+            boxLeft = Math.min(boxLeft, left);
+            boxTop = Math.min(boxTop, top);
+            boxRight = Math.max(boxRight, right);
+            boxBottom = Math.max(boxBottom, bottom);
+        }
+
+        //upload the cleared and the new box together
+        int uploadLeft = Math.min(boxLeft, drawnRight > drawnLeft ? drawnLeft : width);
+        int uploadTop = Math.min(boxTop, drawnRight > drawnLeft ? drawnTop : height);
+        int uploadRight = Math.max(boxRight, drawnRight);
+        int uploadBottom = Math.max(boxBottom, drawnBottom);
+        if (uploadRight > uploadLeft && uploadBottom > uploadTop) {
+            image.getPixelWriter().setPixels(uploadLeft, uploadTop, uploadRight - uploadLeft, uploadBottom - uploadTop,
+                    PixelFormat.getIntArgbInstance(), pixels, uploadTop * width + uploadLeft, width);
+        }
+
+        if (boxRight > boxLeft) {
+            drawnLeft = boxLeft;
+            drawnTop = boxTop;
+            drawnRight = boxRight;
+            drawnBottom = boxBottom;
+        } else {
+            drawnLeft = 0;
+            drawnTop = 0;
+            drawnRight = 0;
+            drawnBottom = 0;
+        }
+    }
+
+    public ImageView getNode() {
+        return view;
+    }
+}
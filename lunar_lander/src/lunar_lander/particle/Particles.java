@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.particle;
+
+import java.util.stream.IntStream;
+import lunar_lander.sim.Terrain;
+
+/**
+ * Sparks and debris that fall, bounce off and settle on the land. Particles
+ * are kept in flat arrays rather than as entities, and collide by looking up
+ * the height of the land under them instead of through collision entities.
+ *
+ * X is measured from the start of the land so particles stay where they
+ * landed as the land scrolls, Y is the screen Y. Past PARALLEL_THRESHOLD
+ * particles the update is split in to chunks run on the common fork join
+ * pool, each chunk only touching its own particles.
+ *
+ * @author Mack
+ */
+public class Particles {
+
+    /**
+     * Particle count from which updates are spread over worker threads
+     */
+    public static final int PARALLEL_THRESHOLD = 8192;
+
+    private static final int CHUNK = 2048;
+
+    private final double gravity = 0.02;
+    private final double bounce = 0.4;
+    private final double friction = 0.7;
+    private final double restSpeed = 0.1;
+
+    private final int capacity;
+    final double[] x;
+    final double[] y;
+    private final double[] velocityX;
+    private final double[] velocityY;
+    private final int[] life;
+    final int[] color;
+    final int[] size;
+    int count = 0;
+
+    /**
+     *
+     * @param capacity Most particles alive at once, extra ones are dropped
+     */
+    public Particles(int capacity) {
+        this.capacity = capacity;
+        x = new double[capacity];
+        y = new double[capacity];
+        velocityX = new double[capacity];
+        velocityY = new double[capacity];
+        life = new int[capacity];
+        color = new int[capacity];
+        size = new int[capacity];
+    }
+
+    /**
+     *
+     * @param landX X position relative to the start of the land
+     * @param screenY Y position on screen
+     * @param vx Velocity on the X-axis in pixels per frame
+     * @param vy Velocity on the Y-axis in pixels per frame
+     * @param frames Frames before the particle is removed
+     * @param argb Colour of the particle
+     * @param pixels Width and height of the particle
+     * @return If there was room for the particle
+     */
+    public boolean add(double landX, double screenY, double vx, double vy, int frames, int argb, int pixels) {
+        if (count == capacity) {
+            return false;
+        }
+        x[count] = landX;
+        y[count] = screenY;
+        velocityX[count] = vx;
+        velocityY[count] = vy;
+        life[count] = frames;
+        color[count] = argb;
+        size[count] = pixels;
+        count++;
+        return true;
+    }
+
+    /**
+     * Moves every particle one frame and removes the ones that ran out
+     *
+     * @param terrain The land to collide with
+     * @param bottom Screen Y of the bottom of the land
+     */
+    public void update(Terrain terrain, double bottom) {
+        if (count >= PARALLEL_THRESHOLD) {
+            int chunks = (count + CHUNK - 1) / CHUNK;
+            IntStream.range(0, chunks).parallel().forEach(c
+                    -> step(terrain, bottom, c * CHUNK, Math.min(count, (c + 1) * CHUNK)));
+        } else {
+            step(terrain, bottom, 0, count);
+        }
+        removeDead();
+    }
+
+    private void step(Terrain terrain, double bottom, int from, int to) {
+        for (int p = from; p < to; p++) {
+            life[p]--;
+            velocityY[p] += gravity;
+            x[p] += velocityX[p];
+            y[p] += velocityY[p];
+
+            double ground = bottom + terrain.getSurface(x[p]);
+            if (y[p] >= ground) {
+                y[p] = ground;
+                if (velocityY[p] > 0) {
+                    velocityY[p] = -velocityY[p] * bounce;
+                    velocityX[p] *= friction;
+                }
+                if (Math.abs(velocityY[p]) < restSpeed) {
+                    velocityY[p] = 0;
+                    velocityX[p] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the gaps left by dead particles with the ones at the end
+     */
+    private void removeDead() {
+        int p = 0;
+        while (p < count) {
+            if (life[p] > 0) {
+                p++;
+                continue;
+            }
+            count--;
+            x[p] = x[count];
+            y[p] = y[count];
+            velocityX[p] = velocityX[count];
+            velocityY[p] = velocityY[count];
+            life[p] = life[count];
+            color[p] = color[count];
+            size[p] = size[count];
+        }
+    }
+
+    /**
+     * Removes every particle, used when the land changes
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
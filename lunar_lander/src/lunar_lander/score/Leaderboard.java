@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.score;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * High scores of the whole game or of one land. The best entries are kept in
+ * a concurrent skip list, every score ever set is counted so ranks stay
+ * exact after the list is trimmed. All methods are safe from any thread.
+ *
+ * @author Mack
+ */
+public class Leaderboard {
+
+    private final int capacity;
+    private final ConcurrentSkipListSet<ScoreEntry> top = new ConcurrentSkipListSet<>();
+    private final AtomicInteger topSize = new AtomicInteger();
+    private final ScoreCounts counts;
+    private final Map<String, Integer> best = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param capacity Number of entries to keep for top queries
+     * @param maxScore Highest score ranked exactly
+     */
+    public Leaderboard(int capacity, int maxScore) {
+        this.capacity = capacity;
+        this.counts = new ScoreCounts(maxScore);
+    }
+
+    /**
+     *
+     * @param entry The new score
+     */
+    public void add(ScoreEntry entry) {
+        counts.add(entry.getScore(), 1);
+        best.merge(entry.getName(), entry.getScore(), Math::max);
+        addTop(entry);
+    }
+
+    /**
+     * Adds an entry to the top list only, used when loading saved counts
+     */
+    void addTop(ScoreEntry entry) {
+        if (topSize.get() >= capacity) {
+            ScoreEntry last = top.isEmpty() ? null : top.last();
+            if (last != null && entry.compareTo(last) > 0) {
+                return;
+            }
+        }
+        if (top.add(entry) && topSize.incrementAndGet() > capacity) {
+            if (top.pollLast() != null) {
+                topSize.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Restores saved state without counting anything twice
+     */
+    void restore(int score, int count) {
+        counts.add(score, count);
+    }
+
+    void restoreBest(String name, int score) {
+        best.merge(name, score, Math::max);
+    }
+
+    /**
+     *
+     * @param n Number of entries
+     * @return The best n entries, best first
+     */
+    public List<ScoreEntry> top(int n) {
+        List<ScoreEntry> list = new ArrayList<>(Math.min(n, capacity));
+        Iterator<ScoreEntry> it = top.iterator();
+        while (it.hasNext() && list.size() < n) {
+            list.add(it.next());
+        }
+        return list;
+    }
+
+    /**
+     *
+     * @param score A score
+     * @return The rank the score would have, 1 is the best
+     */
+    public long rankOf(int score) {
+        return counts.countAbove(score) + 1;
+    }
+
+    /**
+     *
+     * @param name Name of the player
+     * @return Rank of the player's best score, 0 if the player has none
+     */
+    public long rankOf(String name) {
+        Integer score = best.get(name);
+        return score == null ? 0 : rankOf(score);
+    }
+
+    /**
+     *
+     * @param name Name of the player
+     * @return The best score of the player, -1 if the player has none
+     */
+    public int bestOf(String name) {
+        Integer score = best.get(name);
+        return score == null ? -1 : score;
+    }
+
+    /**
+     *
+     * @return Number of scores ever set
+     */
+    public long size() {
+        return counts.getTotal();
+    }
+
+    ScoreCounts getCounts() {
+        return counts;
+    }
+
+    Iterable<ScoreEntry> getTop() {
+        return top;
+    }
+
+    Map<String, Integer> getBest() {
+        return best;
+    }
+}
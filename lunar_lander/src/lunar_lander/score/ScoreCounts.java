@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.score;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how many times every score was set in a Fenwick tree of atomic
+ * counters, so adding a score and finding how many are better are both
+ * O(log maxScore) and safe from any number of threads without locking.
+ *
+ * @author Mack
+ */
+class ScoreCounts {
+
+    private final AtomicIntegerArray tree;
+    private final int size;
+    private final LongAdder total = new LongAdder();
+
+    /**
+     *
+     * @param maxScore Highest score counted exactly, higher ones count as it
+     */
+    ScoreCounts(int maxScore) {
+        this.size = maxScore + 1;
+        this.tree = new AtomicIntegerArray(size + 1);
+    }
+
+    /**
+     *
+     * @param score The score
+     * @param count Number of times it was set
+     */
+    void add(int score, int count) {
+        for (int i = clamp(score) + 1; i <= size; i += i & -i) {
+            tree.addAndGet(i, count);
+        }
+        total.add(count);
+    }
+
+    /**
+     *
+     * @param score The score
+     * @return Number of scores lower or equal
+     */
+    long countAtMost(int score) {
+        if (score < 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = clamp(score) + 1; i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     *
+     * @param score The score
+     * @return Number of scores higher
+     */
+    long countAbove(int score) {
+        return total.sum() - countAtMost(score);
+    }
+
+    /**
+     *
+     * @param score The score
+     * @return Number of times exactly this score was set
+     */
+    int count(int score) {
+        return (int) (countAtMost(score) - countAtMost(score - 1));
+    }
+
+    long getTotal() {
+        return total.sum();
+    }
+
+    int getMaxScore() {
+        return size - 1;
+    }
+
+    private int clamp(int score) {
+        return score < 0 ? 0 : score >= size ? size - 1 : score;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.score;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One score on a leaderboard. Entries sort best first, equal scores by who
+ * got there first.
+ *
+ * @author Mack
+ */
+public class ScoreEntry implements Comparable<ScoreEntry> {
+
+    private static final AtomicLong ORDER = new AtomicLong();
+
+    private final String name;
+    private final int score;
+    private final long time;
+    private final long order = ORDER.incrementAndGet();
+
+    /**
+     *
+     * @param name Name of the player
+     * @param score The score
+     * @param time Time the score was set in milliseconds
+     */
+    public ScoreEntry(String name, int score, long time) {
+        this.name = name;
+        this.score = score;
+        this.time = time;
+    }
+
+    @Override
+    public int compareTo(ScoreEntry o) {
+        if (score != o.score) {
+            return Integer.compare(o.score, score);
+        }
+        if (time != o.time) {
+            return Long.compare(time, o.time);
+        }
+        return Long.compare(order, o.order);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + score;
+    }
+}
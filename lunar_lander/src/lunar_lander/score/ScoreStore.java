@@ -0,0 +1,473 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.score;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the global and per land leaderboards and saves every score to an
+ * append only log. Once the log gets long it is compacted in to a snapshot
+ * holding the score counts, the best entries and the best score of every
+ * player, so loading stays fast however many scores were ever set.
+ *
+ * Every log starts with a generation number. The snapshot notes the
+ * generation and length of the log it was built from, so a log left behind
+ * by a crash during compaction is not replayed on top of it a second time.
+ *
+ * Scores are added to the boards straight away by the calling thread, the
+ * log is written by a single background thread.
+ *
+ * @author Mack
+ */
+public class ScoreStore {
+
+    private static final int MAGIC = 0x4C424453; //LBDS
+    private static final int VERSION = 2;
+    private static final int LOG_MAGIC = 0x4C42444C; //LBDL
+    private static final int LOG_HEADER = 12;
+
+    private static final byte GAME = 0;
+    private static final byte LANDING = 1;
+
+    private static final int GLOBAL_CAPACITY = 1000;
+    private static final int GLOBAL_MAX_SCORE = 1 << 16;
+    private static final int LAND_CAPACITY = 100;
+    private static final int LAND_MAX_SCORE = 100;
+
+    private static final int COMPACT_AFTER = 10000;
+    private static final long COMPACT_INTERVAL = 60 * 1000;
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final LinkedBlockingQueue<Runnable> pending = new LinkedBlockingQueue<>();
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, pending, r -> {
+        Thread t = new Thread(r, "Leaderboard Writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Boards boards = new Boards();
+    private DataOutputStream log;
+    private int logRecords = 0;
+    //generation of the log when it was last read, -1 if it had no header
+    private long logGeneration = -1;
+    //generation of the log the snapshot was built from
+    private long snapshotGeneration = -1;
+    //bytes of the header and whole records in the log when it was last read
+    private long logLength = 0;
+    private long lastCompact = System.currentTimeMillis();
+
+    /**
+     * The global board and one board per land seed
+     */
+    private static class Boards {
+
+        final Leaderboard global = new Leaderboard(GLOBAL_CAPACITY, GLOBAL_MAX_SCORE);
+        final Map<Long, Leaderboard> lands = new ConcurrentHashMap<>();
+
+        Leaderboard land(long seed) {
+            return lands.computeIfAbsent(seed, s -> new Leaderboard(LAND_CAPACITY, LAND_MAX_SCORE));
+        }
+
+        void add(byte kind, long seed, ScoreEntry entry) {
+            if (kind == GAME) {
+                global.add(entry);
+            } else {
+                land(seed).add(entry);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param directory Folder to keep the leaderboard files in
+     */
+    public ScoreStore(Path directory) {
+        this.snapshotFile = directory.resolve("leaderboard.dat");
+        this.logFile = directory.resolve("leaderboard.log");
+    }
+
+    /**
+     * Counts the bytes read through it
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Reads the saved scores and opens the log for new ones. If this fails
+     * scores are still ranked but no longer saved.
+     *
+     * @throws IOException if the files can not be read or created
+     */
+    public void load() throws IOException {
+        logRecords = read(boards);
+        Files.createDirectories(logFile.getParent());
+        if (logGeneration < 0 || logGeneration < snapshotGeneration) {
+            //no log yet, its header was cut off or all of it is in the snapshot
+            startLog(snapshotGeneration + 1);
+            return;
+        }
+        if (Files.size(logFile) > logLength) {
+            //a record cut off by a crash, new records must start after the last whole one
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(logLength);
+            }
+        }
+        log = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Replaces the log with an empty one of the given generation
+     */
+    private void startLog(long generation) throws IOException {
+        log = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)));
+        log.writeInt(LOG_MAGIC);
+        log.writeLong(generation);
+        log.flush();
+        logGeneration = generation;
+        logLength = LOG_HEADER;
+    }
+
+    /**
+     * Loads on the writer thread so startup does not wait on the files.
+     * Scores submitted meanwhile are written once the log is open, the boards
+     * fill up as the saved scores are read.
+     */
+    public void loadInBackground() {
+        writer.execute(() -> {
+            try {
+                load();
+            } catch (IOException e) {
+                System.out.println("Could not load leaderboard: " + e);
+            }
+        });
+    }
+
+    /**
+     *
+     * @param name Name of the player
+     * @param score Final score of the game
+     */
+    public void submitGame(String name, int score) {
+        submit(GAME, 0, name, score);
+    }
+
+    /**
+     *
+     * @param name Name of the player
+     * @param seed Seed of the land
+     * @param points Points of the landing
+     */
+    public void submitLanding(String name, long seed, int points) {
+        submit(LANDING, seed, name, points);
+    }
+
+    private void submit(byte kind, long seed, String name, int score) {
+        long time = System.currentTimeMillis();
+        boards.add(kind, seed, new ScoreEntry(name, score, time));
+        writer.execute(() -> {
+            if (log == null) {
+                //the log could not be opened, the score only lives on the boards
+                return;
+            }
+            try {
+                writeRecord(log, kind, seed, name, score, time);
+                logRecords++;
+                if (pending.isEmpty()) {
+                    log.flush();
+                    if (logRecords >= COMPACT_AFTER
+                            && System.currentTimeMillis() - lastCompact > COMPACT_INTERVAL) {
+                        compact();
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Could not save score: " + e);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the snapshot from the files and starts the next log. Runs on
+     * the writer thread so no record can be written meanwhile, at most once a
+     * minute so a busy log is not read over and over.
+     *
+     * The snapshot is moved in to place first. Until the log is replaced it
+     * still holds the old generation, whose records the snapshot says to skip.
+     */
+    private void compact() throws IOException {
+        lastCompact = System.currentTimeMillis();
+        Boards compacted = new Boards();
+        read(compacted);
+        long generation = logGeneration;
+        long covered = logLength;
+
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeLong(covered);
+            out.writeInt(compacted.lands.size() + 1);
+            writeBoard(out, GAME, 0, compacted.global);
+            for (Map.Entry<Long, Leaderboard> land : compacted.lands.entrySet()) {
+                writeBoard(out, LANDING, land.getKey(), land.getValue());
+            }
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        snapshotGeneration = generation;
+
+        log.close();
+        startLog(generation + 1);
+        logRecords = 0;
+    }
+
+    /**
+     * Loads the snapshot then replays the records of the log it does not
+     * already hold
+     *
+     * @return Number of records in the log
+     */
+    private int read(Boards target) throws IOException {
+        snapshotGeneration = -1;
+        long covered = 0;
+        if (Files.exists(snapshotFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Not a leaderboard: " + snapshotFile);
+                }
+                snapshotGeneration = in.readLong();
+                covered = in.readLong();
+                int boardCount = in.readInt();
+                for (int x = 0; x < boardCount; x++) {
+                    readBoard(in, target);
+                }
+            }
+        }
+
+        int records = 0;
+        logGeneration = -1;
+        logLength = 0;
+        if (Files.exists(logFile)) {
+            CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(logFile), 1 << 16));
+            try (DataInputStream in = new DataInputStream(counter)) {
+                if (in.readInt() != LOG_MAGIC) {
+                    throw new IOException("Not a leaderboard log: " + logFile);
+                }
+                long generation = in.readLong();
+                logGeneration = generation;
+                logLength = counter.count;
+                if (generation < snapshotGeneration) {
+                    //left from before the snapshot, all of it is already counted
+                    return 0;
+                }
+                if (generation == snapshotGeneration) {
+                    //compaction stopped before the log was replaced
+                    in.skipBytes((int) (covered - LOG_HEADER));
+                    logLength = counter.count;
+                }
+                while (true) {
+                    byte kind;
+                    try {
+                        kind = in.readByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    long seed = in.readLong();
+                    long time = in.readLong();
+                    int score = in.readInt();
+                    String name = in.readUTF();
+                    target.add(kind, seed, new ScoreEntry(name, score, time));
+                    records++;
+                    logLength = counter.count;
+                }
+            } catch (EOFException e) {
+                //last record was cut off, the rest is still good
+            }
+        }
+        return records;
+    }
+
+    private static void writeRecord(DataOutputStream out, byte kind, long seed, String name, int score, long time) throws IOException {
+        out.writeByte(kind);
+        out.writeLong(seed);
+        out.writeLong(time);
+        out.writeInt(score);
+        out.writeUTF(name);
+    }
+
+    private static void writeBoard(DataOutputStream out, byte kind, long seed, Leaderboard board) throws IOException {
+        out.writeByte(kind);
+        out.writeLong(seed);
+
+        ScoreCounts counts = board.getCounts();
+        int scores = 0;
+        for (int score = 0; score <= counts.getMaxScore(); score++) {
+            if (counts.count(score) != 0) {
+                scores++;
+            }
+        }
+        out.writeInt(scores);
+        for (int score = 0; score <= counts.getMaxScore(); score++) {
+            int count = counts.count(score);
+            if (count != 0) {
+                out.writeInt(score);
+                out.writeInt(count);
+            }
+        }
+
+        int entries = 0;
+        for (ScoreEntry entry : board.getTop()) {
+            entries++;
+        }
+        out.writeInt(entries);
+        for (ScoreEntry entry : board.getTop()) {
+            out.writeUTF(entry.getName());
+            out.writeInt(entry.getScore());
+            out.writeLong(entry.getTime());
+        }
+
+        out.writeInt(board.getBest().size());
+        for (Map.Entry<String, Integer> best : board.getBest().entrySet()) {
+            out.writeUTF(best.getKey());
+            out.writeInt(best.getValue());
+        }
+    }
+
+    private static void readBoard(DataInputStream in, Boards target) throws IOException {
+        byte kind = in.readByte();
+        long seed = in.readLong();
+        Leaderboard board = kind == GAME ? target.global : target.land(seed);
+
+        int scores = in.readInt();
+        for (int x = 0; x < scores; x++) {
+            int score = in.readInt();
+            board.restore(score, in.readInt());
+        }
+        int entries = in.readInt();
+        for (int x = 0; x < entries; x++) {
+            String name = in.readUTF();
+            int score = in.readInt();
+            board.addTop(new ScoreEntry(name, score, in.readLong()));
+        }
+        int players = in.readInt();
+        for (int x = 0; x < players; x++) {
+            String name = in.readUTF();
+            board.restoreBest(name, in.readInt());
+        }
+    }
+
+    /**
+     *
+     * @return High scores of whole games
+     */
+    public Leaderboard getGlobal() {
+        return boards.global;
+    }
+
+    /**
+     *
+     * @param seed Seed of the land
+     * @return High scores of landings on the land
+     */
+    public Leaderboard getLand(long seed) {
+        return boards.land(seed);
+    }
+
+    /**
+     * Writes out the remaining scores, compacts a long log so the next start
+     * is quick and closes the log
+     */
+    public void close() {
+        writer.execute(() -> {
+            try {
+                if (log != null && logRecords >= COMPACT_AFTER) {
+                    log.flush();
+                    compact();
+                }
+            } catch (IOException e) {
+                System.out.println("Could not compact leaderboard: " + e);
+            }
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+            if (log != null) {
+                log.close();
+            }
+        } catch (InterruptedException | IOException e) {
+            System.out.println("Could not close leaderboard: " + e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lunar_lander.sim.TerrainCache;
+
+/**
+ * Headless server hosting many independent games in one JVM without JavaFX.
+ *
+ * A single selector thread accepts clients and reads their input, the games
+ * are spread over one SessionShard per core which are all ticked at a fixed
+ * rate by a shared scheduler. See Protocol for the wire format.
+ *
+ * Spectators connect to the next port up and send the int id of the session
+ * they want to follow, see SpectatorFeed.
+ *
+ * @author Mack
+ */
+public class GameServer {
+
+    private static final long TICK_NANOS = 1_000_000_000L / 60;
+    private static final long REPORT_SECONDS = 5;
+
+    private final int port;
+    private final SessionShard[] shards;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Integer, GameSession> sessions = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+
+    private int nextId = 0;
+
+    /**
+     * Starts the server on localhost
+     *
+     * @param args [port] [shards]
+     * @throws IOException if the port can not be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        new GameServer(port, shards).run();
+    }
+
+    /**
+     *
+     * @param port Port to listen on
+     * @param shardCount Number of shards, normally one per core
+     */
+    public GameServer(int port, int shardCount) {
+        this.port = port;
+        this.shards = new SessionShard[shardCount];
+        this.scheduler = Executors.newScheduledThreadPool(shardCount + 1, r -> {
+            Thread t = new Thread(r, "Lander Shard");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int x = 0; x < shardCount; x++) {
+            //a session closed by its shard is never seen by the selector again
+            shards[x] = new SessionShard(TICK_NANOS, session -> sessions.remove(session.getId(), session));
+        }
+    }
+
+    /**
+     * Starts ticking the shards and serves clients until the thread is
+     * interrupted
+     *
+     * @throws IOException if the port can not be bound
+     */
+    public void run() throws IOException {
+        for (SessionShard shard : shards) {
+            scheduler.scheduleAtFixedRate(shard, 0, TICK_NANOS, TimeUnit.NANOSECONDS);
+        }
+        scheduler.scheduleAtFixedRate(this::report, REPORT_SECONDS, REPORT_SECONDS, TimeUnit.SECONDS);
+
+        ByteBuffer in = ByteBuffer.allocate(256);
+        try (Selector selector = Selector.open();
+                ServerSocketChannel server = ServerSocketChannel.open();
+                ServerSocketChannel spectatorServer = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", port), 1024);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            spectatorServer.bind(new InetSocketAddress("localhost", port + 1), 1024);
+            spectatorServer.configureBlocking(false);
+            spectatorServer.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Lander server listening on port " + port + " with " + shards.length + " shards");
+
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable() && key.channel() == server) {
+                        accept(server, selector);
+                    } else if (key.isAcceptable()) {
+                        acceptSpectator(spectatorServer, selector);
+                    } else if (key.isReadable() && key.attachment() instanceof GameSession) {
+                        read(key, in);
+                    } else if (key.isReadable()) {
+                        readSpectator(key);
+                    }
+                }
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Accepts a new client and gives it a session on the next shard
+     */
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+
+        GameSession session = new GameSession(nextId, channel, random.nextLong());
+        channel.register(selector, SelectionKey.OP_READ, session);
+        sessions.put(nextId, session);
+        shards[nextId % shards.length].add(session);
+        nextId++;
+    }
+
+    /**
+     * Reads the inputs of a client, only the latest key state counts
+     */
+    private void read(SelectionKey key, ByteBuffer in) {
+        GameSession session = (GameSession) key.attachment();
+        try {
+            in.clear();
+            int read = ((SocketChannel) key.channel()).read(in);
+            if (read < 0) {
+                key.cancel();
+                session.close();
+                sessions.remove(session.getId());
+            } else if (read > 0) {
+                session.setInput(in.get(read - 1));
+            }
+        } catch (IOException e) {
+            key.cancel();
+            session.close();
+            sessions.remove(session.getId());
+        }
+    }
+
+    /**
+     * Accepts a spectator, it is attached to a game once it sent the id
+     */
+    private void acceptSpectator(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(4));
+    }
+
+    /**
+     * Reads the session id a spectator wants to follow and hands it over
+     */
+    private void readSpectator(SelectionKey key) {
+        ByteBuffer id = (ByteBuffer) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            if (channel.read(id) < 0) {
+                key.cancel();
+                channel.close();
+                return;
+            }
+            if (id.hasRemaining()) {
+                return;
+            }
+            key.cancel();
+            GameSession session = sessions.get(id.getInt(0));
+            if (session == null || session.isClosed()) {
+                channel.close();
+            } else {
+                session.getSpectators().addSpectator(channel);
+            }
+        } catch (IOException e) {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                //already closed
+            }
+        }
+    }
+
+    /**
+     * Prints the tick timings of all shards and sessions
+     */
+    private void report() {
+        int sessions = 0;
+        int spectators = 0;
+        long maxTick = 0;
+        double meanTick = 0;
+        long maxLate = 0;
+        long maxRun = 0;
+
+        for (SessionShard shard : shards) {
+            maxLate = Math.max(maxLate, shard.getMaxLateNanos());
+            maxRun = Math.max(maxRun, shard.getLastRunNanos());
+            shard.resetMaxLate();
+            for (GameSession session : shard.getSessions()) {
+                TickMetrics metrics = session.getMetrics();
+                sessions++;
+                spectators += session.getSpectators().getSpectatorCount();
+                meanTick += metrics.getMeanNanos();
+                maxTick = Math.max(maxTick, metrics.getMaxNanos());
+                metrics.resetMax();
+            }
+        }
+        if (sessions > 0) {
+            meanTick /= sessions;
+        }
+
+        TerrainCache lands = TerrainCache.getShared();
+        System.out.printf("sessions=%d spectators=%d tick mean=%.1fus max=%.1fus shard run=%.2fms late=%.2fms"
+                + " land hits=%d misses=%d evictions=%d%n",
+                sessions, spectators, meanTick / 1000, maxTick / 1000.0, maxRun / 1e6, maxLate / 1e6,
+                lands.getHits(), lands.getMisses(), lands.getEvictions());
+    }
+
+    /**
+     *
+     * @return The shards of the server
+     */
+    public SessionShard[] getShards() {
+        return shards;
+    }
+}
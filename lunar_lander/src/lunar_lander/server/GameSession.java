@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import lunar_lander.sim.LanderSimulation;
+
+/**
+ * One connected player with its own simulation. Input is set by the network
+ * thread, ticks are run by the shard the session belongs to.
+ *
+ * @author Mack
+ */
+public class GameSession {
+
+    private final int id;
+    private final SocketChannel channel;
+    private final LanderSimulation sim;
+    private final TickMetrics metrics = new TickMetrics();
+    private final SpectatorFeed spectators = new SpectatorFeed();
+    private final ByteBuffer out = ByteBuffer.allocate(Protocol.STATE_SIZE);
+
+    private volatile int input;
+    private volatile boolean closed;
+
+    /**
+     *
+     * @param id Id of the session
+     * @param channel Non blocking channel of the client
+     * @param seed Seed of the simulation
+     */
+    public GameSession(int id, SocketChannel channel, long seed) {
+        this.id = id;
+        this.channel = channel;
+        this.sim = new LanderSimulation(seed);
+        this.sim.setListener(spectators);
+        out.flip();
+    }
+
+    /**
+     * Runs one tick and sends the new state to the client. If the client
+     * could not take the last frame yet it is finished first and this tick's
+     * state is skipped, so frames are never split.
+     */
+    void tick() {
+        long start = System.nanoTime();
+
+        sim.applyInput(input);
+        sim.tick();
+
+        try {
+            if (!out.hasRemaining()) {
+                out.clear();
+                Protocol.writeState(sim, out);
+                out.flip();
+            }
+            channel.write(out);
+        } catch (IOException e) {
+            close();
+        }
+
+        spectators.onTick(sim);
+
+        metrics.record(System.nanoTime() - start);
+    }
+
+    /**
+     *
+     * @param input The LanderSimulation INPUT_ flags held down by the client
+     */
+    void setInput(int input) {
+        this.input = input;
+    }
+
+    /**
+     * Closes the connection, the shard drops the session on its next tick
+     */
+    void close() {
+        closed = true;
+        spectators.closeAll();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //already closed
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public LanderSimulation getSimulation() {
+        return sim;
+    }
+
+    public SpectatorFeed getSpectators() {
+        return spectators;
+    }
+
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+}
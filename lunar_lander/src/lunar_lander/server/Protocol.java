@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.server;
+
+import java.nio.ByteBuffer;
+import lunar_lander.sim.LanderSimulation;
+
+/**
+ * The wire format between the game server and its clients.
+ *
+ * Clients send single bytes, each one is the set of keys held down (see the
+ * LanderSimulation INPUT_ flags). The server answers every tick with a fixed
+ * size big endian STATE frame:
+ *
+ * <pre>
+ * int   tick
+ * long  terrain seed
+ * float positionX, positionY, velocityX, velocityY, rotation, landPositionX, fuel
+ * int   score
+ * byte  throttle, lives, flags (FLAG_ values), reserved
+ * </pre>
+ *
+ * @author Mack
+ */
+public final class Protocol {
+
+    public static final int FLAG_LANDED = 1;
+    public static final int FLAG_CRASHED = 1 << 1;
+    public static final int FLAG_BOUNDS_WARNING = 1 << 2;
+
+    /**
+     * Size of a STATE frame in bytes
+     */
+    public static final int STATE_SIZE = 48;
+
+    private Protocol() {
+    }
+
+    /**
+     * Writes a STATE frame at the current position of the buffer
+     *
+     * @param sim The simulation to encode
+     * @param out Buffer with at least STATE_SIZE bytes remaining
+     */
+    public static void writeState(LanderSimulation sim, ByteBuffer out) {
+        int flags = 0;
+        if (sim.isLanded()) {
+            flags |= FLAG_LANDED;
+        }
+        if (sim.isCrashed()) {
+            flags |= FLAG_CRASHED;
+        }
+        if (sim.isBoundsWarning()) {
+            flags |= FLAG_BOUNDS_WARNING;
+        }
+
+        out.putInt((int) sim.getTick());
+        out.putLong(sim.getTerrain().getSeed());
+        out.putFloat((float) sim.getPositionX());
+        out.putFloat((float) sim.getPositionY());
+        out.putFloat((float) sim.getVelocityX());
+        out.putFloat((float) sim.getVelocityY());
+        out.putFloat((float) sim.getRotation());
+        out.putFloat((float) sim.getLandPositionX());
+        out.putFloat((float) sim.getFuel());
+        out.putInt(sim.getScore());
+        out.put((byte) sim.getThrottle());
+        out.put((byte) sim.getLives());
+        out.put((byte) flags);
+        out.put((byte) 0);
+    }
+}
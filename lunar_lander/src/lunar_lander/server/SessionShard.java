@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.server;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * A group of sessions ticked together by one scheduled task. The server runs
+ * one shard per core so every session is only ever touched by one thread at a
+ * time.
+ *
+ * @author Mack
+ */
+public class SessionShard implements Runnable {
+
+    private final ConcurrentLinkedQueue<GameSession> sessions = new ConcurrentLinkedQueue<>();
+    private final long tickNanos;
+    private final Consumer<GameSession> onClosed;
+
+    private long nextTick;
+    private volatile int sessionCount;
+    private volatile long lastRunNanos;
+    private volatile long maxLateNanos;
+
+    /**
+     *
+     * @param tickNanos Time between two ticks
+     * @param onClosed Called on the shard thread with every closed session
+     * once it is dropped, however it was closed
+     */
+    public SessionShard(long tickNanos, Consumer<GameSession> onClosed) {
+        this.tickNanos = tickNanos;
+        this.onClosed = onClosed;
+    }
+
+    /**
+     * Ticks every session of the shard
+     */
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        if (nextTick != 0 && start - nextTick > maxLateNanos) {
+            maxLateNanos = start - nextTick;
+        }
+        nextTick = (nextTick == 0 ? start : nextTick) + tickNanos;
+
+        int count = 0;
+        Iterator<GameSession> it = sessions.iterator();
+        while (it.hasNext()) {
+            GameSession session = it.next();
+            if (session.isClosed()) {
+                it.remove();
+                onClosed.accept(session);
+                continue;
+            }
+            try {
+                session.tick();
+            } catch (RuntimeException e) {
+                //never let one session stop the whole shard
+                e.printStackTrace();
+                session.close();
+            }
+            count++;
+        }
+        sessionCount = count;
+        lastRunNanos = System.nanoTime() - start;
+    }
+
+    /**
+     *
+     * @param session Session to tick from the next run on
+     */
+    void add(GameSession session) {
+        sessions.add(session);
+    }
+
+    /**
+     * Clears the max lateness so it covers the next reporting period only
+     */
+    void resetMaxLate() {
+        maxLateNanos = 0;
+    }
+
+    public Iterable<GameSession> getSessions() {
+        return sessions;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    /**
+     *
+     * @return Time the last run took to tick all sessions
+     */
+    public long getLastRunNanos() {
+        return lastRunNanos;
+    }
+
+    /**
+     *
+     * @return Largest delay of a run behind its schedule
+     */
+    public long getMaxLateNanos() {
+        return maxLateNanos;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.server;
+
+import lunar_lander.sim.LanderSimulation;
+
+/**
+ * Quantised state of a game as seen by spectators. Positions are kept in
+ * 1/8 pixels, velocities in 1/1024 pixels per tick and rotation in 1/10
+ * degrees, so deltas between two snapshots stay small.
+ *
+ * @author Mack
+ */
+public class Snapshot {
+
+    public static final int POSITION_SCALE = 8;
+    public static final int VELOCITY_SCALE = 1024;
+    public static final int ROTATION_SCALE = 10;
+
+    /**
+     * Number of int fields, see get and set
+     */
+    public static final int FIELDS = 10;
+
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int VELOCITY_X = 2;
+    public static final int VELOCITY_Y = 3;
+    public static final int ROTATION = 4;
+    public static final int THROTTLE = 5;
+    public static final int FUEL = 6;
+    public static final int SCORE = 7;
+    public static final int LIVES = 8;
+    public static final int FLAGS = 9;
+
+    int tick;
+    long seed;
+    final int[] fields = new int[FIELDS];
+
+    /**
+     * Copies the quantised state of a simulation in to this snapshot
+     *
+     * @param sim The simulation to capture
+     */
+    public void capture(LanderSimulation sim) {
+        int flags = 0;
+        if (sim.isLanded()) {
+            flags |= Protocol.FLAG_LANDED;
+        }
+        if (sim.isCrashed()) {
+            flags |= Protocol.FLAG_CRASHED;
+        }
+        if (sim.isBoundsWarning()) {
+            flags |= Protocol.FLAG_BOUNDS_WARNING;
+        }
+
+        tick = (int) sim.getTick();
+        seed = sim.getTerrain().getSeed();
+        fields[X] = (int) Math.round((sim.getLandPositionX() + sim.getPositionX()) * POSITION_SCALE);
+        fields[Y] = (int) Math.round(sim.getPositionY() * POSITION_SCALE);
+        fields[VELOCITY_X] = (int) Math.round(sim.getVelocityX() * VELOCITY_SCALE);
+        fields[VELOCITY_Y] = (int) Math.round(sim.getVelocityY() * VELOCITY_SCALE);
+        fields[ROTATION] = (int) Math.round(sim.getRotation() * ROTATION_SCALE);
+        fields[THROTTLE] = sim.getThrottle();
+        fields[FUEL] = (int) sim.getFuel();
+        fields[SCORE] = sim.getScore();
+        fields[LIVES] = sim.getLives();
+        fields[FLAGS] = flags;
+    }
+
+    /**
+     *
+     * @param other Snapshot to copy from
+     */
+    public void copyFrom(Snapshot other) {
+        tick = other.tick;
+        seed = other.seed;
+        System.arraycopy(other.fields, 0, fields, 0, FIELDS);
+    }
+
+    public int get(int field) {
+        return fields[field];
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Spectators regenerate the land from this seed instead of receiving it
+     *
+     * @return Seed of the current land
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     *
+     * @return The X position of the lander relative to the start of the land
+     */
+    public double getX() {
+        return (double) fields[X] / POSITION_SCALE;
+    }
+
+    public double getY() {
+        return (double) fields[Y] / POSITION_SCALE;
+    }
+
+    public double getRotation() {
+        return (double) fields[ROTATION] / ROTATION_SCALE;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes snapshots for spectators. Every frame starts with its length as a
+ * varint followed by:
+ *
+ * <pre>
+ * byte   KEY or DELTA
+ * varint tick (absolute for KEY, difference for DELTA)
+ * KEY:   long seed, every field as a zigzag varint
+ * DELTA: varint mask of changed fields (bit FIELDS is the seed), the seed as
+ *        a long if changed, then the zigzag varint difference of each
+ *        changed field
+ * varint event count, then per event a byte type and a zigzag varint value
+ * </pre>
+ *
+ * @author Mack
+ */
+public final class SnapshotCodec {
+
+    public static final byte KEY = 1;
+    public static final byte DELTA = 2;
+
+    public static final byte EVENT_LANDED = 1;
+    public static final byte EVENT_CRASHED = 2;
+    public static final byte EVENT_ROUND_RESET = 3;
+
+    private static final int SEED_BIT = 1 << Snapshot.FIELDS;
+
+    /**
+     * Largest possible frame, with room for the events a feed keeps
+     */
+    public static final int MAX_FRAME_SIZE = 5 + 1 + 5 + 8 + Snapshot.FIELDS * 5 + 5 + 32 * 6;
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Writes a frame every spectator can decode without a previous snapshot
+     *
+     * @param current The snapshot to send
+     * @param events Event type and value pairs
+     * @param eventCount Number of events
+     * @param out Buffer to write the frame to
+     */
+    public static void writeKey(Snapshot current, int[] events, int eventCount, ByteBuffer out) {
+        int start = beginFrame(out);
+        out.put(KEY);
+        putVarInt(out, current.tick);
+        out.putLong(current.seed);
+        for (int x = 0; x < Snapshot.FIELDS; x++) {
+            putVarInt(out, zigzag(current.fields[x]));
+        }
+        putEvents(out, events, eventCount);
+        endFrame(out, start);
+    }
+
+    /**
+     * Writes only what changed since the base snapshot
+     *
+     * @param base The snapshot the spectator already has
+     * @param current The snapshot to send
+     * @param events Event type and value pairs
+     * @param eventCount Number of events
+     * @param out Buffer to write the frame to
+     */
+    public static void writeDelta(Snapshot base, Snapshot current, int[] events, int eventCount, ByteBuffer out) {
+        int mask = 0;
+        for (int x = 0; x < Snapshot.FIELDS; x++) {
+            if (base.fields[x] != current.fields[x]) {
+                mask |= 1 << x;
+            }
+        }
+        if (base.seed != current.seed) {
+            mask |= SEED_BIT;
+        }
+
+        int start = beginFrame(out);
+        out.put(DELTA);
+        putVarInt(out, current.tick - base.tick);
+        putVarInt(out, mask);
+        if ((mask & SEED_BIT) != 0) {
+            out.putLong(current.seed);
+        }
+        for (int x = 0; x < Snapshot.FIELDS; x++) {
+            if ((mask & (1 << x)) != 0) {
+                putVarInt(out, zigzag(current.fields[x] - base.fields[x]));
+            }
+        }
+        putEvents(out, events, eventCount);
+        endFrame(out, start);
+    }
+
+    /**
+     * Reads one whole frame and applies it to the spectator's snapshot
+     *
+     * @param in Buffer holding at least one whole frame
+     * @param state The last snapshot of the spectator, updated in place
+     * @param events Receives the event type and value pairs, may be null
+     * @return The number of events in the frame
+     */
+    public static int read(ByteBuffer in, Snapshot state, int[] events) {
+        getVarInt(in);
+        byte type = in.get();
+        if (type == KEY) {
+            state.tick = getVarInt(in);
+            state.seed = in.getLong();
+            for (int x = 0; x < Snapshot.FIELDS; x++) {
+                state.fields[x] = unzigzag(getVarInt(in));
+            }
+        } else {
+            state.tick += getVarInt(in);
+            int mask = getVarInt(in);
+            if ((mask & SEED_BIT) != 0) {
+                state.seed = in.getLong();
+            }
+            for (int x = 0; x < Snapshot.FIELDS; x++) {
+                if ((mask & (1 << x)) != 0) {
+                    state.fields[x] += unzigzag(getVarInt(in));
+                }
+            }
+        }
+
+        int count = getVarInt(in);
+        for (int x = 0; x < count; x++) {
+            byte eventType = in.get();
+            int value = unzigzag(getVarInt(in));
+            if (events != null && x * 2 + 1 < events.length) {
+                events[x * 2] = eventType;
+                events[x * 2 + 1] = value;
+            }
+        }
+        return count;
+    }
+
+    private static void putEvents(ByteBuffer out, int[] events, int eventCount) {
+        putVarInt(out, eventCount);
+        for (int x = 0; x < eventCount; x++) {
+            out.put((byte) events[x * 2]);
+            putVarInt(out, zigzag(events[x * 2 + 1]));
+        }
+    }
+
+    /**
+     * Leaves one byte for the length, frames are almost always smaller than
+     * 128 bytes. Longer frames are moved up once finished.
+     */
+    private static int beginFrame(ByteBuffer out) {
+        int start = out.position();
+        out.put((byte) 0);
+        return start;
+    }
+
+    private static void endFrame(ByteBuffer out, int start) {
+        int length = out.position() - start - 1;
+        if (length < 0x80) {
+            out.put(start, (byte) length);
+            return;
+        }
+        int extra = length < 1 << 14 ? 1 : length < 1 << 21 ? 2 : 3;
+        for (int x = out.position() - 1; x > start; x--) {
+            out.put(x + extra, out.get(x));
+        }
+        int end = out.position() + extra;
+        out.position(start);
+        putVarInt(out, length);
+        out.position(end);
+    }
+
+    static void putVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
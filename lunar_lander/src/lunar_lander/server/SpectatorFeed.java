@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lunar_lander.sim.LanderSimulation;
+import lunar_lander.sim.SimulationListener;
+
+/**
+ * Streams one game to its spectators. Every few ticks the state is encoded
+ * once as a delta against the previous broadcast and, only if a spectator
+ * needs it, once as a key frame. All spectators are sent views of those same
+ * two buffers, nothing is encoded per spectator.
+ *
+ * A spectator that could not take a whole frame keeps finishing it before
+ * getting anything new, any frame it misses meanwhile means its base is out
+ * of date so it gets the next key frame instead of a delta.
+ *
+ * @author Mack
+ */
+public class SpectatorFeed implements SimulationListener {
+
+    /**
+     * Ticks between two broadcasts, spectators interpolate in between
+     */
+    public static final int INTERVAL = 6;
+
+    private static final int MAX_EVENTS = 32;
+
+    private final ConcurrentLinkedQueue<Spectator> spectators = new ConcurrentLinkedQueue<>();
+
+    private final Snapshot previous = new Snapshot();
+    private final Snapshot current = new Snapshot();
+    private final ByteBuffer keyFrame = ByteBuffer.allocate(SnapshotCodec.MAX_FRAME_SIZE);
+    private final ByteBuffer deltaFrame = ByteBuffer.allocate(SnapshotCodec.MAX_FRAME_SIZE);
+
+    private final int[] events = new int[MAX_EVENTS * 2];
+    private int eventCount = 0;
+    private int ticksToBroadcast = 0;
+    private boolean hasPrevious = false;
+
+    /**
+     * A connection following the game
+     */
+    private static class Spectator {
+
+        final SocketChannel channel;
+        ByteBuffer pending;
+        boolean synced = false;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Can be called from any thread, the spectator gets a key frame first
+     *
+     * @param channel Non blocking channel of the spectator
+     */
+    public void addSpectator(SocketChannel channel) {
+        spectators.add(new Spectator(channel));
+    }
+
+    /**
+     * Called by the session after every tick of its simulation
+     *
+     * @param sim The simulation being watched
+     */
+    void onTick(LanderSimulation sim) {
+        if (spectators.isEmpty()) {
+            eventCount = 0;
+            hasPrevious = false;
+            return;
+        }
+        if (--ticksToBroadcast > 0) {
+            return;
+        }
+        ticksToBroadcast = INTERVAL;
+
+        current.capture(sim);
+        boolean keyEncoded = false;
+
+        deltaFrame.clear();
+        if (hasPrevious) {
+            SnapshotCodec.writeDelta(previous, current, events, eventCount, deltaFrame);
+        }
+        deltaFrame.flip();
+
+        Iterator<Spectator> it = spectators.iterator();
+        while (it.hasNext()) {
+            Spectator spectator = it.next();
+            try {
+                //finish the last frame before sending anything new
+                if (spectator.pending != null) {
+                    spectator.channel.write(spectator.pending);
+                    if (spectator.pending.hasRemaining()) {
+                        spectator.synced = false;
+                        continue;
+                    }
+                    spectator.pending = null;
+                }
+
+                ByteBuffer frame;
+                if (spectator.synced && hasPrevious) {
+                    frame = deltaFrame.duplicate();
+                } else {
+                    if (!keyEncoded) {
+                        keyFrame.clear();
+                        SnapshotCodec.writeKey(current, events, eventCount, keyFrame);
+                        keyFrame.flip();
+                        keyEncoded = true;
+                    }
+                    frame = keyFrame.duplicate();
+                }
+
+                spectator.channel.write(frame);
+                spectator.synced = true;
+                if (frame.hasRemaining()) {
+                    //the shared buffers are reused next time, keep a copy
+                    spectator.pending = ByteBuffer.allocate(frame.remaining());
+                    spectator.pending.put(frame);
+                    spectator.pending.flip();
+                }
+            } catch (IOException e) {
+                it.remove();
+                try {
+                    spectator.channel.close();
+                } catch (IOException ex) {
+                    //already closed
+                }
+            }
+        }
+
+        previous.copyFrom(current);
+        hasPrevious = true;
+        eventCount = 0;
+    }
+
+    /**
+     * Disconnects every spectator, used when the game ends
+     */
+    void closeAll() {
+        Spectator spectator;
+        while ((spectator = spectators.poll()) != null) {
+            try {
+                spectator.channel.close();
+            } catch (IOException e) {
+                //already closed
+            }
+        }
+    }
+
+    private void addEvent(byte type, int value) {
+        if (eventCount < MAX_EVENTS) {
+            events[eventCount * 2] = type;
+            events[eventCount * 2 + 1] = value;
+            eventCount++;
+        }
+    }
+
+    @Override
+    public void onLanded(int points) {
+        addEvent(SnapshotCodec.EVENT_LANDED, points);
+    }
+
+    @Override
+    public void onCrashed() {
+        addEvent(SnapshotCodec.EVENT_CRASHED, 0);
+    }
+
+    @Override
+    public void onRoundReset(boolean gameOver, int finalScore) {
+        addEvent(SnapshotCodec.EVENT_ROUND_RESET, gameOver ? finalScore : -1);
+    }
+
+    @Override
+    public void onNewGame() {
+        addEvent(SnapshotCodec.EVENT_ROUND_RESET, -1);
+    }
+
+    /**
+     *
+     * @return Number of connected spectators
+     */
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+}
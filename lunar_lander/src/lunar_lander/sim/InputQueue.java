@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands key presses and releases from one writer thread to one reader thread
+ * without locking. Each change is stamped with System.nanoTime() when it
+ * happens, the reader takes them in order up to the time of each tick.
+ *
+ * A key pressed and let go again between two ticks still counts as held for
+ * the tick, so a quick tap is never lost.
+ *
+ * @author Mack
+ */
+public class InputQueue {
+
+    private static final int DOWN = 1 << 31;
+
+    private final int mask;
+    private final long[] times;
+    private final int[] changes;
+
+    //next slot to write, only changed by the writer
+    private final AtomicLong tail = new AtomicLong();
+    //next slot to read, only changed by the reader
+    private final AtomicLong head = new AtomicLong();
+
+    //only used by the reader
+    private int held = 0;
+
+    //only used by the writer
+    private long overflows = 0;
+
+    /**
+     *
+     * @param capacity Changes the queue can hold, rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        times = new long[size];
+        changes = new int[size];
+    }
+
+    /**
+     * Writer only. A full queue can only happen if the reader has stopped, the
+     * change is then lost and counted.
+     *
+     * @param keys The keys that changed
+     * @param down If the keys are now held down
+     * @param nanos System.nanoTime() of the change
+     * @return If the change was queued
+     */
+    public boolean offer(int keys, boolean down, long nanos) {
+        long at = tail.get();
+        if (at - head.get() > mask) {
+            overflows++;
+            return false;
+        }
+        int slot = (int) (at & mask);
+        times[slot] = nanos;
+        changes[slot] = down ? keys | DOWN : keys;
+        tail.lazySet(at + 1);
+        return true;
+    }
+
+    /**
+     * Reader only. Applies every change made up to the given time.
+     *
+     * @param until System.nanoTime() of the tick
+     * @return The keys that were held at any time since the last call
+     */
+    public int take(long until) {
+        int active = held;
+        long at = head.get();
+        long end = tail.get();
+        while (at < end) {
+            int slot = (int) (at & mask);
+            if (times[slot] - until > 0) {
+                break;
+            }
+            int change = changes[slot];
+            if ((change & DOWN) != 0) {
+                held |= change & ~DOWN;
+                active |= held;
+            } else {
+                held &= ~change;
+            }
+            at++;
+        }
+        head.lazySet(at);
+        return active;
+    }
+
+    /**
+     * Reader only
+     *
+     * @return The keys held down after the last take
+     */
+    public int getHeld() {
+        return held;
+    }
+
+    /**
+     * Writer only
+     *
+     * @return Changes lost because the queue was full
+     */
+    public long getOverflows() {
+        return overflows;
+    }
+}
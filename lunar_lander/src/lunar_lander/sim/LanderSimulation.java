@@ -0,0 +1,543 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.Random;
+
+/**
+ * The lander physics and game rules without any rendering. Runs one step per
+ * call to tick, the game calls it from its 60HZ loop and the server from its
+ * own scheduler.
+ *
+ * @author Mack
+ */
+public class LanderSimulation {
+
+    /**
+     * Keys held down, as given to {@link #applyInput(int)}
+     */
+    public static final int INPUT_RIGHT = 1;
+    public static final int INPUT_LEFT = 1 << 1;
+    public static final int INPUT_UP = 1 << 2;
+    public static final int INPUT_DOWN = 1 << 3;
+
+    private static final SimulationListener NO_LISTENER = new SimulationListener() {
+    };
+
+    //World varibles
+    private final double gravity = 0.004;
+
+    //Window varibles
+    private final int windowWidth = 1000;
+    private final int windowHight = 800;
+
+    //Land varibles
+    private Terrain terrain;
+    private TerrainCollider collider;
+    private double landPositionX = 0;
+    private double landXOffSet;
+
+    //Lander varibles
+    private double positionX = 200;
+    private double positionY = 100;
+    private double velocityX;
+    private double velocityY = 0;
+    private double rotationalVelocity = 0;
+    private double rotation = 0;
+    private final double landerSize = 25;
+
+    private final double turnSpeed = .01;
+    private final double maxLandingVelocity = .35;
+    private final double maxThrust = .01;
+
+    private final int delayTime = 300;
+
+    private int delayTimerActive;
+    private int hasLandedDelay = 5;
+
+    private boolean landed = false;
+    private boolean crashed = false;
+    private boolean boundsWarning = false;
+
+    private int throttle = 0;
+    private int score = 0;
+    private int lives = 2;
+    private double fuel = 10000;
+
+    private long tick = 0;
+
+    private final Random random;
+
+    //ready made levels played in order, null for generated land
+    private final LevelPack levels;
+    private int level = -1;
+    //land picked to play next instead of a random one
+    private boolean seedChosen = false;
+    private long chosenSeed;
+    private SimulationListener listener = NO_LISTENER;
+
+    /**
+     * Creates a simulation with a random seed
+     */
+    public LanderSimulation() {
+        this(new Random().nextLong());
+    }
+
+    /**
+     *
+     * @param seed Seed used for the land and starting velocity of every round
+     */
+    public LanderSimulation(long seed) {
+        this(seed, null);
+    }
+
+    /**
+     *
+     * @param seed Seed used for the starting velocity of every round, and for
+     * the land if there are no levels
+     * @param levels Levels to play in order, null to generate the land
+     */
+    public LanderSimulation(long seed, LevelPack levels) {
+        random = new Random(seed);
+        this.levels = levels != null && levels.size() > 0 ? levels : null;
+        velocityX = random.nextDouble();
+        makeLand();
+        startLevel(true);
+    }
+
+    /**
+     *
+     * @param listener Listener to receive the events, null to remove
+     */
+    public void setListener(SimulationListener listener) {
+        this.listener = listener == null ? NO_LISTENER : listener;
+    }
+
+    /**
+     * Rotates the lander to the right
+     */
+    public void turnRight() {
+        rotationalVelocity += turnSpeed;
+    }
+
+    /**
+     * Rotates the lander to the left
+     */
+    public void turnLeft() {
+        rotationalVelocity -= turnSpeed;
+    }
+
+    /**
+     * Increases the throttle by 1% while flying
+     */
+    public void throttleUp() {
+        if (throttle < 100 && !onGround()) {
+            throttle++;
+        }
+    }
+
+    /**
+     * Decreases the throttle by 1% while flying
+     */
+    public void throttleDown() {
+        if (throttle > 0 && !onGround()) {
+            throttle--;
+        }
+    }
+
+    /**
+     * Runs the actions of the held keys, once per tick like the UserActions of
+     * the game
+     *
+     * @param input The INPUT_ flags held down
+     */
+    public void applyInput(int input) {
+        if ((input & INPUT_RIGHT) != 0) {
+            turnRight();
+        }
+        if ((input & INPUT_LEFT) != 0) {
+            turnLeft();
+        }
+        if ((input & INPUT_UP) != 0) {
+            throttleUp();
+        }
+        if ((input & INPUT_DOWN) != 0) {
+            throttleDown();
+        }
+    }
+
+    /**
+     * Runs a single step of the simulation
+     */
+    public void tick() {
+        tick++;
+
+        //Burn if crashed & dig in to ground to give a crashed look
+        if (crashed) {
+            if (hasLandedDelay > 0) {
+                hasLandedDelay--;
+                positionX += velocityX;
+                positionY += velocityY;
+            }
+        }
+
+        //Resets game after a delay
+        if (onGround()) {
+            if (delayTimerActive > 0) {
+                delayTimerActive--;
+            } else {
+                endRound();
+            }
+        }
+
+        //When flying
+        if (!onGround()) {
+
+            //Calulate velocities and position
+            if (fuel > 0) {
+                double tempX = (float) Math.cos(Math.toRadians(rotation + 90));
+                double tempY = (float) Math.sin(Math.toRadians(rotation + 90));
+                velocityX += (-(double) throttle / 100) * tempX * maxThrust;
+                velocityY += (-(double) throttle / 100) * tempY * maxThrust;
+                listener.onThrust(throttle);
+                useFuel(throttle);
+            }
+
+            //Find curernt position, remembering where the middle was
+            double startX = getLandX();
+            double startY = positionY + landerSize / 2 - windowHight;
+            positionX += velocityX;
+            positionY += velocityY;
+
+            /*  Check if landed or crashed
+            *   the lander is swept along its path as a circle so fast
+            *   landers can't pass through peaks, and put back where it hit
+            *   landed if on flat ground and velcity is low
+            *   crashed if not on flat ground or velcity is too high
+             */
+            if (collider.sweep(startX, startY, getLandX(), positionY + landerSize / 2 - windowHight, landerSize / 2)) {
+                double remaining = 1 - collider.getHitTime();
+                positionX -= velocityX * remaining;
+                positionY -= velocityY * remaining;
+
+                if (terrain.isFlat(getLandX())
+                        && Math.abs(velocityX) + Math.abs(velocityY) < maxLandingVelocity) {
+                    //Landing was successful
+                    landed = true;
+                    throttle = 0;
+                    int scoreToAddTemp = terrain.getLandingScore(getLandX());
+                    score += scoreToAddTemp;
+                    delayTimerActive = delayTime;
+                    listener.onLanded(scoreToAddTemp);
+                } else {
+                    //Landing was unsuccessful
+                    crashed = true;
+                    lives--;
+                    delayTimerActive = delayTime;
+                    listener.onCrashed();
+                }
+            }
+
+            //Edge scrolling when in the most left and right 1/6ths of the screen
+            if (positionX > (windowWidth - windowWidth / 6)) {
+                landPositionX += ((windowWidth / 6) - (windowWidth - positionX));
+                positionX -= (windowWidth / 6) - (windowWidth - positionX);
+                listener.onScroll(-velocityX);
+            }
+            if (positionX < (windowWidth / 6)) {
+                landPositionX -= (windowWidth / 6) - positionX;
+                positionX += (windowWidth / 6) - positionX;
+                listener.onScroll(-velocityX);
+            }
+
+            //gravity
+            velocityY += gravity;
+
+            //smooth roatation
+            rotation += rotationalVelocity;
+
+            //check if going out of the world, scrollEnd is where the right
+            //end of the land meets the right of the window
+            double scrollEnd = terrain.getWidth() - windowWidth;
+            if ((landPositionX > scrollEnd - 180 || landPositionX < 150) && !boundsWarning && !onGround()) {
+                boundsWarning = true;
+                listener.onBoundsWarning(true);
+            } else if (boundsWarning) {
+                boundsWarning = false;
+                listener.onBoundsWarning(false);
+            }
+            if (landPositionX > scrollEnd + 120 || landPositionX < -150) {
+                lives--;
+                endRound();
+            }
+        }
+    }
+
+    /**
+     * Ends the current round, the game is over if out of fuel or lives
+     */
+    private void endRound() {
+        int finalScore = score;
+        boolean gameOver = lives < 1 || fuel < 0.1;
+        resetRound(gameOver);
+        listener.onRoundReset(gameOver, finalScore);
+    }
+
+    /**
+     *
+     * @param gameOver If the score, lives and fuel should be reset too
+     */
+    private void resetRound(boolean gameOver) {
+        throttle = 0;
+        positionX = 200;
+        positionY = 100;
+        velocityX = random.nextDouble();
+        velocityY = 0;
+        rotationalVelocity = 0;
+        rotation = 0;
+        landed = false;
+        crashed = false;
+        hasLandedDelay = 5;
+
+        if (gameOver) {
+            score = 0;
+            lives = 2;
+            fuel = 10000;
+        }
+
+        makeLand();
+        startLevel(gameOver);
+    }
+
+    /**
+     * Puts the lander at the spawn point of the level, a new game also gets
+     * the fuel and lives of the level
+     *
+     * @param newGame If the level starts a new game
+     */
+    private void startLevel(boolean newGame) {
+        if (levels == null) {
+            return;
+        }
+        positionX = levels.getSpawnX(level);
+        positionY = levels.getSpawnY(level);
+        if (newGame) {
+            fuel = levels.getFuel(level);
+            lives = levels.getLives(level);
+        }
+    }
+
+    /**
+     * Generates new land, or takes the next level, and moves the view to the
+     * centre of it
+     */
+    private void makeLand() {
+        if (levels != null) {
+            level = (level + 1) % levels.size();
+            terrain = levels.readTerrain(level);
+        } else if (seedChosen) {
+            seedChosen = false;
+            terrain = TerrainCache.getShared().get(chosenSeed);
+        } else {
+            terrain = TerrainCache.getShared().get(random.nextLong());
+        }
+        collider = new TerrainCollider(terrain);
+        landXOffSet = terrain.getWidth() / 2 - windowWidth / 2;
+        landPositionX = landXOffSet;
+    }
+
+    /**
+     * Uses fuel based on the current value of the throttle
+     *
+     * @param throttle The throttle value from 0 - 100
+     */
+    private void useFuel(int throttle) {
+        double fuelTemp = Math.floor((float) fuel - (float) throttle / 20);
+
+        if (fuelTemp > 0) {
+            fuel = fuelTemp;
+        } else {
+            fuel = 0;
+        }
+    }
+
+    /**
+     *
+     * @return The X position of the centre of the lander relative to the land
+     */
+    public double getLandX() {
+        return landPositionX + positionX + 12.5;
+    }
+
+    /**
+     *
+     * @return The distance between the top of the lander and the land
+     */
+    public double getHeightFromLand() {
+        return windowHight - (positionY - terrain.getHeight(getLandX()));
+    }
+
+    /**
+     *
+     * @return If the velocity is slow enough to land
+     */
+    public boolean isSafeVelocity() {
+        return Math.abs(velocityX) + Math.abs(velocityY) < maxLandingVelocity;
+    }
+
+    /**
+     * Check if lander has landed or crashed
+     *
+     * @return Boolean is on the ground
+     */
+    public boolean onGround() {
+        return landed || crashed;
+    }
+
+    public boolean isLanded() {
+        return landed;
+    }
+
+    public boolean isCrashed() {
+        return crashed;
+    }
+
+    public boolean isBoundsWarning() {
+        return boundsWarning;
+    }
+
+    public Terrain getTerrain() {
+        return terrain;
+    }
+
+    public double getLandPositionX() {
+        return landPositionX;
+    }
+
+    public double getLandXOffSet() {
+        return landXOffSet;
+    }
+
+    public double getPositionX() {
+        return positionX;
+    }
+
+    public double getPositionY() {
+        return positionY;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    public int getThrottle() {
+        return throttle;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public double getFuel() {
+        return fuel;
+    }
+
+    /**
+     *
+     * @return Added to the Y velocity every tick, in pixels per tick
+     */
+    public double getGravity() {
+        return gravity;
+    }
+
+    public double getMaxLandingVelocity() {
+        return maxLandingVelocity;
+    }
+
+    public int getWindowWidth() {
+        return windowWidth;
+    }
+
+    public int getWindowHight() {
+        return windowHight;
+    }
+
+    /**
+     *
+     * @return Number of steps run since the simulation was created
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Starts a new game on a level of the level pack, later rounds go on from
+     * there in order
+     *
+     * @param index Index of the level
+     */
+    public void playLevel(int index) {
+        if (levels == null) {
+            return;
+        }
+        level = index - 1;
+        restart();
+    }
+
+    /**
+     * Starts a new game on generated land, later rounds get random land again
+     *
+     * @param seed Seed of the land
+     */
+    public void playSeed(long seed) {
+        seedChosen = true;
+        chosenSeed = seed;
+        restart();
+    }
+
+    private void restart() {
+        resetRound(true);
+        listener.onNewGame();
+    }
+
+    /**
+     *
+     * @return Index of the level being played, -1 if the land is generated
+     */
+    public int getLevel() {
+        return level;
+    }
+}
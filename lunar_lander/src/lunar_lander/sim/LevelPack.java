@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of ready made levels, mapped in to memory so opening a pack only
+ * reads its header and checks that every level fits in the file. Levels are
+ * read straight out of the mapped file when asked for. Written by LevelPackWriter, the layout (big endian) is:
+ *
+ * <pre>
+ * int    MAGIC, int VERSION, int level count, int 0
+ * long   offset of each level
+ * level: long  seed the land was made from
+ *        int   number of vertices along the top of the land
+ *        float spawn X, float spawn Y (screen position with the land centred)
+ *        int   fuel, int lives
+ *        int   pad count, then per pad int vertex after it and int length
+ *        float height of each vertex along the top
+ * </pre>
+ *
+ * X positions are not stored, the vertices are always Terrain.SPACING apart.
+ * Any thread may read a pack.
+ *
+ * @author Mack
+ */
+public class LevelPack {
+
+    static final int MAGIC = 0x4C50414B; //LPAK
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private static final int VERTICES = 8;
+    private static final int SPAWN_X = 12;
+    private static final int SPAWN_Y = 16;
+    private static final int FUEL = 20;
+    private static final int LIVES = 24;
+    private static final int PADS = 28;
+    //bytes of a level before its pads
+    private static final int LEVEL_SIZE = 32;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int[] offsets;
+
+    private LevelPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a level pack");
+        }
+        count = buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + (long) count * 8 > buffer.limit()) {
+            throw new IOException("Level pack is cut short");
+        }
+
+        //a bad level would otherwise only fail when it is played
+        offsets = new int[count];
+        for (int level = 0; level < count; level++) {
+            long at = buffer.getLong(HEADER_SIZE + level * 8);
+            if (at < HEADER_SIZE + (long) count * 8 || at + LEVEL_SIZE > buffer.limit()) {
+                throw new IOException("Level " + level + " of the level pack starts outside it");
+            }
+            int vertices = buffer.getInt((int) at + VERTICES);
+            int pads = buffer.getInt((int) at + PADS);
+            if (vertices < 2 || pads < 0 || at + LEVEL_SIZE + pads * 8L + vertices * 4L > buffer.limit()) {
+                throw new IOException("Level " + level + " of the level pack is cut short");
+            }
+            offsets[level] = (int) at;
+        }
+    }
+
+    /**
+     *
+     * @param file File written by LevelPackWriter
+     * @return The mapped pack
+     * @throws IOException if the file can not be read or is not a level pack
+     */
+    public static LevelPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //the mapping stays valid after the channel is closed
+            return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     *
+     * @param buffer A whole pack, for packs that are not files
+     * @return The pack
+     * @throws IOException if the buffer is not a level pack
+     */
+    public static LevelPack wrap(ByteBuffer buffer) throws IOException {
+        return new LevelPack(buffer.duplicate());
+    }
+
+    private int offset(int level) {
+        if (level < 0 || level >= count) {
+            throw new IndexOutOfBoundsException("Level " + level + " of " + count);
+        }
+        return offsets[level];
+    }
+
+    /**
+     *
+     * @return Number of levels in the pack
+     */
+    public int size() {
+        return count;
+    }
+
+    public long getSeed(int level) {
+        return buffer.getLong(offset(level));
+    }
+
+    public double getSpawnX(int level) {
+        return buffer.getFloat(offset(level) + SPAWN_X);
+    }
+
+    public double getSpawnY(int level) {
+        return buffer.getFloat(offset(level) + SPAWN_Y);
+    }
+
+    public int getFuel(int level) {
+        return buffer.getInt(offset(level) + FUEL);
+    }
+
+    public int getLives(int level) {
+        return buffer.getInt(offset(level) + LIVES);
+    }
+
+    /**
+     *
+     * @param level Index of the level
+     * @return The vertex just after each pad and its length, in pairs as
+     * Terrain.findPads gives them
+     */
+    public int[] getPads(int level) {
+        int at = offset(level);
+        int[] pads = new int[buffer.getInt(at + PADS) * 2];
+        for (int x = 0; x < pads.length; x++) {
+            pads[x] = buffer.getInt(at + PADS + 4 + x * 4);
+        }
+        return pads;
+    }
+
+    /**
+     * Builds the land points straight from the mapped file, with the pads
+     * stored alongside them
+     *
+     * @param level Index of the level
+     * @return The land of the level
+     */
+    public Terrain readTerrain(int level) {
+        int at = offset(level);
+        int vertices = buffer.getInt(at + VERTICES);
+        int heights = at + PADS + 4 + buffer.getInt(at + PADS) * 8;
+
+        //first and last vertex close the polygon along the bottom
+        double[] points = new double[(vertices + 2) * 2];
+        for (int x = 0; x < vertices; x++) {
+            points[x * 2 + 2] = x * Terrain.SPACING;
+            points[x * 2 + 3] = buffer.getFloat(heights + x * 4);
+        }
+        points[points.length - 2] = (vertices - 1) * Terrain.SPACING;
+        return new Terrain(buffer.getLong(at), points, getPads(level));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * Collects levels and writes them as a LevelPack. Can be run on its own to
+ * make a pack of generated levels:
+ *
+ * <pre>
+ * java lunar_lander.sim.LevelPackWriter levels.pack 1000 42
+ * </pre>
+ *
+ * @author Mack
+ */
+public class LevelPackWriter {
+
+    private final ArrayList<Level> levels = new ArrayList<>();
+
+    /**
+     * A level waiting to be written
+     */
+    private static class Level {
+
+        final Terrain terrain;
+        final float spawnX;
+        final float spawnY;
+        final int fuel;
+        final int lives;
+
+        Level(Terrain terrain, float spawnX, float spawnY, int fuel, int lives) {
+            this.terrain = terrain;
+            this.spawnX = spawnX;
+            this.spawnY = spawnY;
+            this.fuel = fuel;
+            this.lives = lives;
+        }
+
+        int size() {
+            return 32 + terrain.findPads().length * 4 + (terrain.getPointCount() / 2 - 2) * 4;
+        }
+    }
+
+    /**
+     *
+     * @param terrain The land, heights are stored as floats
+     * @param spawnX Screen X the lander starts at with the land centred
+     * @param spawnY Screen Y the lander starts at
+     * @param fuel Fuel at the start of a game
+     * @param lives Lives at the start of a game
+     * @return This writer
+     */
+    public LevelPackWriter add(Terrain terrain, double spawnX, double spawnY, int fuel, int lives) {
+        levels.add(new Level(terrain, (float) spawnX, (float) spawnY, fuel, lives));
+        return this;
+    }
+
+    /**
+     *
+     * @param file File to write the pack to
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(LevelPack.MAGIC);
+            out.writeInt(LevelPack.VERSION);
+            out.writeInt(levels.size());
+            out.writeInt(0);
+
+            long offset = LevelPack.HEADER_SIZE + levels.size() * 8L;
+            for (Level level : levels) {
+                out.writeLong(offset);
+                offset += level.size();
+            }
+
+            for (Level level : levels) {
+                double[] points = level.terrain.getPoints();
+                int[] pads = level.terrain.findPads();
+                int vertices = points.length / 2 - 2;
+
+                out.writeLong(level.terrain.getSeed());
+                out.writeInt(vertices);
+                out.writeFloat(level.spawnX);
+                out.writeFloat(level.spawnY);
+                out.writeInt(level.fuel);
+                out.writeInt(level.lives);
+                out.writeInt(pads.length / 2);
+                for (int pad : pads) {
+                    out.writeInt(pad);
+                }
+                for (int x = 0; x < vertices; x++) {
+                    out.writeFloat((float) points[x * 2 + 3]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a pack of generated levels with the normal spawn, fuel and lives
+     *
+     * @param args File, number of levels and the seed of the first level
+     * @throws IOException if the file can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: LevelPackWriter <file> <levels> [seed]");
+            return;
+        }
+        int count = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        LevelPackWriter writer = new LevelPackWriter();
+        for (int x = 0; x < count; x++) {
+            writer.add(TerrainGenerator.generate(seed + x), 200, 100, 10000, 2);
+        }
+        writer.write(Paths.get(args[0]));
+    }
+}
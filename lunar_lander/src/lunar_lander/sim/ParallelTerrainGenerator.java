@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Generates very large land in parallel. The land is cut in to segments of
+ * SEGMENT_VERTICES vertices that each run the same random walk as
+ * TerrainGenerator, with their own Random seeded from the seed and the
+ * segment number, starting from the centre height. The segments are then
+ * stitched together end to end, each one flipped upside down if that keeps
+ * the land nearer the centre, so the land stays on screen however long it
+ * is.
+ *
+ * Segments do not depend on how many threads run them, so a seed always
+ * gives the same land. Land that fits in one segment is exactly what
+ * TerrainGenerator makes from the same seed.
+ *
+ * @author Mack
+ */
+public class ParallelTerrainGenerator {
+
+    /**
+     * Vertices walked by one task
+     */
+    public static final int SEGMENT_VERTICES = 1 << 14;
+
+    private static final double CENTRE = -150;
+
+    private ParallelTerrainGenerator() {
+    }
+
+    /**
+     *
+     * @param seed Seed of the random land
+     * @param landWidth Number of values (two per vertex) to generate
+     * @return The generated land
+     */
+    public static Terrain generate(long seed, int landWidth) {
+        double[] generatedLand = new double[landWidth];
+        int first = 2;
+        int end = landWidth - 2;
+        int values = SEGMENT_VERTICES * 2;
+        int segments = Math.max(1, (end - first + values - 1) / values);
+
+        //walk every segment from the centre, keeping how far each one moved
+        double[] drift = new double[segments];
+        IntStream.range(0, segments).parallel().forEach(s -> {
+            int from = first + s * values;
+            int to = Math.min(end, from + values);
+            Random rand = new Random(s == 0 ? seed : mix(seed, s));
+            drift[s] = TerrainGenerator.walk(rand, generatedLand, from, to, CENTRE) - CENTRE;
+        });
+
+        //stitch the segments, only one value per segment so done in order
+        double[] base = new double[segments];
+        boolean[] flipped = new boolean[segments];
+        double height = CENTRE;
+        for (int s = 0; s < segments; s++) {
+            base[s] = height - CENTRE;
+            flipped[s] = s > 0 && Math.abs(height - drift[s] - CENTRE) < Math.abs(height + drift[s] - CENTRE);
+            height += flipped[s] ? -drift[s] : drift[s];
+        }
+
+        //move every segment to where it was stitched
+        IntStream.range(1, segments).parallel().forEach(s -> {
+            int from = first + s * values;
+            int to = Math.min(end, from + values);
+            for (int a = from + 1; a < to; a += 2) {
+                double offset = generatedLand[a] - CENTRE;
+                generatedLand[a] = CENTRE + base[s] + (flipped[s] ? -offset : offset);
+            }
+        });
+
+        generatedLand[0] = 0.0;
+        generatedLand[1] = 0.0;
+        generatedLand[landWidth - 2] = generatedLand[landWidth - 4];
+        generatedLand[landWidth - 1] = 0.0;
+
+        return new Terrain(seed, generatedLand);
+    }
+
+    /**
+     * Spreads the seed and segment number over all bits, so neighbouring
+     * segments get unrelated Randoms
+     */
+    private static long mix(long seed, int segment) {
+        long z = seed + segment * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+/**
+ * Receives the events of a LanderSimulation, all methods are called on the
+ * thread running the simulation
+ *
+ * @author Mack
+ */
+public interface SimulationListener {
+
+    /**
+     * Called when the engine burns, before the lander is moved
+     *
+     * @param throttle The throttle value from 0 - 100
+     */
+    default void onThrust(int throttle) {
+    }
+
+    /**
+     *
+     * @param points The score added for the landing
+     */
+    default void onLanded(int points) {
+    }
+
+    /**
+     * Called when the lander hits the ground too fast or off a flat area
+     */
+    default void onCrashed() {
+    }
+
+    /**
+     * Called when the land is scrolled to keep the lander on screen
+     *
+     * @param x Amount everything attached to the land should move by
+     */
+    default void onScroll(double x) {
+    }
+
+    /**
+     *
+     * @param show If the out of bounds warning should be shown
+     */
+    default void onBoundsWarning(boolean show) {
+    }
+
+    /**
+     * Called after a new round was set up with new land
+     *
+     * @param gameOver If the round ended the game
+     * @param finalScore The score before the reset
+     */
+    default void onRoundReset(boolean gameOver, int finalScore) {
+    }
+
+    /**
+     * Called after a game was restarted on land picked by the player, the
+     * score, lives and fuel are reset but the old game did not end
+     */
+    default void onNewGame() {
+    }
+}
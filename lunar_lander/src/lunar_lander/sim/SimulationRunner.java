@@ -0,0 +1,397 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a simulation on its own thread at a fixed rate, so a slow frame on
+ * the FX thread no longer holds up the physics. After every tick the state is
+ * published through a StateExchange and the events of the tick are queued,
+ * the FX thread reads the newest state and replays the events up to it.
+ *
+ * Key presses and releases are queued with the time they happened and each
+ * tick takes the ones made before it, so input does not depend on when the
+ * FX thread gets to it or on the frame rate.
+ *
+ * The speed can be changed from a quarter up to a hundred times normal. Each
+ * run of the timer then does as many ticks as the speed adds up to but still
+ * publishes only once, and thrust is only reported once per run, so the FX
+ * thread does the same work per frame at any speed. Landings and games
+ * played at any other speed than normal are marked as dilated so they can be
+ * kept off the leaderboards.
+ *
+ * @author Mack
+ */
+public class SimulationRunner implements SimulationListener {
+
+    /**
+     * Ticks per second of the original game loop
+     */
+    public static final int DEFAULT_RATE = 60;
+
+    public static final double MIN_SPEED = 0.25;
+    public static final double MAX_SPEED = 100;
+
+    private static final int THRUST = 0;
+    private static final int LANDED = 1;
+    private static final int CRASHED = 2;
+    private static final int BOUNDS_WARNING = 3;
+    private static final int ROUND_RESET = 4;
+    private static final int NEW_GAME = 5;
+
+    private final LanderSimulation sim;
+    private final int rate;
+    private final StateExchange exchange = new StateExchange();
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final InputQueue input = new InputQueue(256);
+
+    private ScheduledExecutorService executor;
+    private Runnable afterTick = () -> {
+    };
+    private volatile boolean held = false;
+    private volatile double speed = 1;
+
+    //only used by the simulation thread
+    private int round = 0;
+    private int roundTick = 0;
+    private double scroll = 0;
+    private double steps = 0;
+    private long lastRun = 0;
+    private int tickInput = 0;
+    private boolean thrustReported = false;
+    private boolean roundDilated = false;
+    private boolean gameDilated = false;
+
+    //only used by the FX thread
+    private boolean eventDilated = false;
+
+    /**
+     * Something that happened during a tick
+     */
+    private static class Event {
+
+        final long tick;
+        final int type;
+        final int value;
+        final boolean flag;
+        final boolean dilated;
+
+        Event(long tick, int type, int value, boolean flag, boolean dilated) {
+            this.tick = tick;
+            this.type = type;
+            this.value = value;
+            this.flag = flag;
+            this.dilated = dilated;
+        }
+    }
+
+    /**
+     * The simulation must not be used by any other thread once started
+     *
+     * @param sim The simulation to run
+     * @param rate Ticks per second
+     */
+    public SimulationRunner(LanderSimulation sim, int rate) {
+        this.sim = sim;
+        this.rate = rate;
+        sim.setListener(this);
+
+        //so the first read has something in it
+        exchange.getBack().capture(sim, round, roundTick, scroll);
+        exchange.publish();
+    }
+
+    /**
+     *
+     * @param afterTick Run on the simulation thread after every tick, before
+     * the state is published
+     */
+    public void setAfterTick(Runnable afterTick) {
+        this.afterTick = afterTick;
+    }
+
+    /**
+     * Starts ticking on a new daemon thread
+     */
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, 0, 1_000_000_000L / rate, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops ticking, the simulation may be used by other threads afterwards
+     */
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void tick() {
+        if (held) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            long from = lastRun == 0 ? now : lastRun;
+            lastRun = now;
+
+            Runnable command;
+            while ((command = commands.poll()) != null) {
+                command.run();
+            }
+
+            thrustReported = false;
+            boolean stepped = false;
+            steps += speed;
+            int count = (int) steps;
+            steps -= count;
+            //each tick of the run ends at its share of the time since the last run
+            for (int x = 0; x < count && !held; x++) {
+                step(from + (now - from) * (x + 1) / count);
+                stepped = true;
+            }
+
+            if (stepped) {
+                exchange.getBack().capture(sim, round, roundTick - 1, scroll);
+                exchange.publish();
+            }
+        } catch (RuntimeException e) {
+            //an exception would silently cancel the schedule
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs a single tick of the simulation with the keys held down
+     *
+     * @param until System.nanoTime() the tick ends at, later input waits for
+     * the next tick
+     */
+    private void step(long until) {
+        if (speed != 1) {
+            roundDilated = true;
+            gameDilated = true;
+        }
+        int keys = input.take(until);
+        tickInput = keys;
+        sim.applyInput(keys);
+
+        sim.tick();
+        afterTick.run();
+        roundTick++;
+    }
+
+    /**
+     * Can be called from any thread, takes effect on the next run of the timer
+     *
+     * @param speed Simulated time per real time, clamped between MIN_SPEED
+     * and MAX_SPEED
+     */
+    public void setSpeed(double speed) {
+        this.speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Can be called from any thread
+     *
+     * @param command Run on the simulation thread before the next tick, the
+     * only safe way to change the simulation while it runs
+     */
+    public void execute(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * Called from the FX thread only, as soon as the key changes
+     *
+     * @param flag One of the LanderSimulation INPUT_ flags
+     * @param down If the key is now held down
+     */
+    public void setInput(int flag, boolean down) {
+        input.offer(flag, down, System.nanoTime());
+    }
+
+    /**
+     * Simulation thread only
+     *
+     * @return The LanderSimulation INPUT_ flags the last tick ran with
+     */
+    public int getTickInput() {
+        return tickInput;
+    }
+
+    /**
+     * The simulation holds itself after a game over until this is called, so
+     * nothing happens behind the game over screen
+     */
+    public void resume() {
+        held = false;
+    }
+
+    /**
+     * FX thread only
+     *
+     * @return The newest state, unchanged until the next call
+     */
+    public SimulationState read() {
+        return exchange.read();
+    }
+
+    /**
+     * Replays the queued events up to and including the given state, in the
+     * order they happened. Scrolling is not replayed, it is in the state.
+     *
+     * @param state The state last read
+     * @param listener Gets the events on the calling thread
+     */
+    public void dispatch(SimulationState state, SimulationListener listener) {
+        Event event;
+        while ((event = events.peek()) != null && event.tick <= state.getTick()) {
+            events.poll();
+            eventDilated = event.dilated;
+            switch (event.type) {
+                case THRUST:
+                    listener.onThrust(event.value);
+                    break;
+                case LANDED:
+                    listener.onLanded(event.value);
+                    break;
+                case CRASHED:
+                    listener.onCrashed();
+                    break;
+                case BOUNDS_WARNING:
+                    listener.onBoundsWarning(event.flag);
+                    break;
+                case ROUND_RESET:
+                    listener.onRoundReset(event.flag, event.value);
+                    break;
+                case NEW_GAME:
+                    listener.onNewGame();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * FX thread only, while dispatching
+     *
+     * @return If the event being dispatched comes from a round, or for a
+     * game over from a game, where any tick ran at other than normal speed
+     */
+    public boolean isEventDilated() {
+        return eventDilated;
+    }
+
+    /**
+     * Simulation thread only
+     *
+     * @return If any tick of this round ran at other than normal speed
+     */
+    public boolean isRoundDilated() {
+        return roundDilated;
+    }
+
+    /**
+     * Simulation thread only
+     *
+     * @return Number of rounds reset since the start
+     */
+    public int getRound() {
+        return round;
+    }
+
+    @Override
+    public void onThrust(int throttle) {
+        if (!thrustReported) {
+            thrustReported = true;
+            events.add(new Event(sim.getTick(), THRUST, throttle, false, roundDilated));
+        }
+    }
+
+    @Override
+    public void onLanded(int points) {
+        events.add(new Event(sim.getTick(), LANDED, points, false, roundDilated));
+    }
+
+    @Override
+    public void onCrashed() {
+        events.add(new Event(sim.getTick(), CRASHED, 0, false, roundDilated));
+    }
+
+    @Override
+    public void onScroll(double x) {
+        scroll += x;
+    }
+
+    @Override
+    public void onBoundsWarning(boolean show) {
+        events.add(new Event(sim.getTick(), BOUNDS_WARNING, 0, show, roundDilated));
+    }
+
+    @Override
+    public void onRoundReset(boolean gameOver, int finalScore) {
+        round++;
+        roundTick = 0;
+        scroll = 0;
+        if (gameOver) {
+            held = true;
+        }
+        events.add(new Event(sim.getTick(), ROUND_RESET, finalScore, gameOver, gameOver ? gameDilated : roundDilated));
+        roundDilated = false;
+        if (gameOver) {
+            gameDilated = false;
+        }
+    }
+
+    @Override
+    public void onNewGame() {
+        round++;
+        roundTick = 0;
+        scroll = 0;
+        roundDilated = false;
+        gameDilated = false;
+        events.add(new Event(sim.getTick(), NEW_GAME, 0, false, false));
+    }
+}
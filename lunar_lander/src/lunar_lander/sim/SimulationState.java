@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+/**
+ * A copy of everything the screen shows about a simulation at one tick.
+ * Written by the simulation thread, read by the FX thread once handed over
+ * through a StateExchange.
+ *
+ * @author Mack
+ */
+public class SimulationState {
+
+    private long tick;
+    private int round;
+    private int roundTick;
+    private double scroll;
+
+    private Terrain terrain;
+    private double landXOffSet;
+    private double landPositionX;
+
+    private double positionX;
+    private double positionY;
+    private double velocityX;
+    private double velocityY;
+    private double rotation;
+
+    private int throttle;
+    private int score;
+    private int lives;
+    private double fuel;
+
+    private boolean onGround;
+    private boolean safeVelocity;
+
+    /**
+     *
+     * @param sim The simulation to copy
+     * @param round Number of rounds reset since the start
+     * @param roundTick Ticks since the round started
+     * @param scroll How far the land has scrolled this round
+     */
+    void capture(LanderSimulation sim, int round, int roundTick, double scroll) {
+        this.tick = sim.getTick();
+        this.round = round;
+        this.roundTick = roundTick;
+        this.scroll = scroll;
+        this.terrain = sim.getTerrain();
+        this.landXOffSet = sim.getLandXOffSet();
+        this.landPositionX = sim.getLandPositionX();
+        this.positionX = sim.getPositionX();
+        this.positionY = sim.getPositionY();
+        this.velocityX = sim.getVelocityX();
+        this.velocityY = sim.getVelocityY();
+        this.rotation = sim.getRotation();
+        this.throttle = sim.getThrottle();
+        this.score = sim.getScore();
+        this.lives = sim.getLives();
+        this.fuel = sim.getFuel();
+        this.onGround = sim.onGround();
+        this.safeVelocity = sim.isSafeVelocity();
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getRoundTick() {
+        return roundTick;
+    }
+
+    /**
+     * Sum of everything sent to onScroll since the round started
+     *
+     * @return How far the land has scrolled this round
+     */
+    public double getScroll() {
+        return scroll;
+    }
+
+    public Terrain getTerrain() {
+        return terrain;
+    }
+
+    public double getLandXOffSet() {
+        return landXOffSet;
+    }
+
+    public double getLandPositionX() {
+        return landPositionX;
+    }
+
+    public double getPositionX() {
+        return positionX;
+    }
+
+    public double getPositionY() {
+        return positionY;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    public int getThrottle() {
+        return throttle;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public double getFuel() {
+        return fuel;
+    }
+
+    public boolean onGround() {
+        return onGround;
+    }
+
+    public boolean isSafeVelocity() {
+        return safeVelocity;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands states from one writer thread to one reader thread without locking.
+ * There are three states: one being written, one being read and the newest
+ * finished one in between. Publishing and reading each swap with the one in
+ * between, so neither side ever waits and the reader always gets the newest
+ * finished state.
+ *
+ * @author Mack
+ */
+public class StateExchange {
+
+    private static final int INDEX = 3;
+    private static final int FRESH = 4;
+
+    private final SimulationState[] states = {
+        new SimulationState(), new SimulationState(), new SimulationState()};
+
+    //index of the newest finished state, with FRESH set until it is read
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    //only used by the writer
+    private int back = 0;
+
+    //only used by the reader
+    private int front = 2;
+
+    /**
+     * Writer only
+     *
+     * @return The state to fill before calling publish
+     */
+    SimulationState getBack() {
+        return states[back];
+    }
+
+    /**
+     * Writer only, makes the filled state the newest one
+     */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * Reader only. The returned state stays the same until the next call.
+     *
+     * @return The newest published state
+     */
+    public SimulationState read() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return states[front];
+    }
+}
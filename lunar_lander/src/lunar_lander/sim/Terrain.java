@@ -0,0 +1,261 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.Arrays;
+
+/**
+ * A generated piece of land. The points are stored in the same flat
+ * x0,y0,x1,y1... layout the land Polygon uses, with the heights measured
+ * upwards (negative) from the bottom of the window.
+ *
+ * @author Mack
+ */
+public class Terrain {
+
+    /**
+     * Number of values (two per vertex) in a default sized terrain
+     */
+    public static final int DEFAULT_POINTS = 500;
+
+    /**
+     * Horizontal space between two vertices
+     */
+    public static final double SPACING = 10.0;
+
+    private final long seed;
+    private final double[] points;
+
+    //worked out the first time they are asked for, the land never changes
+    private volatile int[] pads;
+    private volatile double[] padCentres;
+
+    /**
+     *
+     * @param seed The seed the land was generated from
+     * @param points The land points in x,y format
+     */
+    public Terrain(long seed, double[] points) {
+        this.seed = seed;
+        this.points = points;
+    }
+
+    /**
+     *
+     * @param seed The seed the land was generated from
+     * @param points The land points in x,y format
+     * @param pads The pads as findPads would find them, saves scanning
+     */
+    public Terrain(long seed, double[] points, int[] pads) {
+        this.seed = seed;
+        this.points = points;
+        this.pads = pads;
+    }
+
+    /**
+     *
+     * @return The seed the land was generated from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * The backing array is shared, it must not be changed by the caller
+     *
+     * @return The land points in x,y format
+     */
+    public double[] getPoints() {
+        return points;
+    }
+
+    /**
+     *
+     * @return The number of values in the points array
+     */
+    public int getPointCount() {
+        return points.length;
+    }
+
+    /**
+     *
+     * @return The width of the land in pixels
+     */
+    public int getWidth() {
+        return (points.length - 4) / 2 * (int) SPACING;
+    }
+
+    /**
+     *
+     * @param landX The X position relative to the start of the land
+     * @return The index of the height value under the given position
+     */
+    public int heightIndex(double landX) {
+        return (int) (landX / SPACING) * 2 + 3;
+    }
+
+    /**
+     *
+     * @param landX The X position relative to the start of the land
+     * @return The height of the land under the given position
+     */
+    public double getHeight(double landX) {
+        return points[heightIndex(landX)];
+    }
+
+    /**
+     * Unlike getHeight this follows the slope between two vertices, off
+     * either end of the land the end heights are used
+     *
+     * @param landX The X position relative to the start of the land
+     * @return The height of the top of the land at the given position
+     */
+    public double getSurface(double landX) {
+        if (landX <= 0) {
+            return points[3];
+        }
+        int left = heightIndex(landX);
+        if (left + 2 > points.length - 3) {
+            return points[points.length - 3];
+        }
+        double along = landX / SPACING - Math.floor(landX / SPACING);
+        return points[left] + (points[left + 2] - points[left]) * along;
+    }
+
+    /**
+     *
+     * @param landX The X position relative to the start of the land
+     * @return If the land is flat under the given position
+     */
+    public boolean isFlat(double landX) {
+        int left = (int) (Math.floor((landX / SPACING)) * 2) + 3;
+        int right = (int) (Math.ceil((landX / SPACING)) * 2) + 3;
+        return points[left] == points[right];
+    }
+
+    /**
+     * Finds the flat landing areas, a pad is at least two flat segments. The
+     * array is shared, it must not be changed by the caller.
+     *
+     * @return The vertex just after each pad and the number of flat segments
+     * in it, in pairs
+     */
+    public int[] findPads() {
+        int[] found = pads;
+        if (found == null) {
+            found = scanPads();
+            pads = found;
+        }
+        return found;
+    }
+
+    /**
+     * Where the landing labels go, the array is shared, it must not be
+     * changed by the caller
+     *
+     * @return The X position of the middle of each pad relative to the start
+     * of the land, in the same order as findPads
+     */
+    public double[] getPadCentres() {
+        double[] centres = padCentres;
+        if (centres == null) {
+            int[] found = findPads();
+            centres = new double[found.length / 2];
+            for (int a = 0; a < centres.length; a++) {
+                centres[a] = (found[a * 2] - 1) * SPACING - found[a * 2 + 1] * SPACING / 2;
+            }
+            padCentres = centres;
+        }
+        return centres;
+    }
+
+    /**
+     *
+     * @return Rough number of bytes held by the land and what was worked out
+     * from it
+     */
+    public long getSizeBytes() {
+        int[] found = pads;
+        double[] centres = padCentres;
+        return 64 + 16 + points.length * 8L
+                + (found == null ? 0 : 16 + found.length * 4L)
+                + (centres == null ? 0 : 16 + centres.length * 8L);
+    }
+
+    private int[] scanPads() {
+        int[] pads = new int[16];
+        int count = 0;
+        int flatCount = 0;
+
+        for (int x = 0; x < getWidth() / (int) SPACING; x++) {
+            if (points[(x * 2) + 3] == points[(x * 2) + 5]) {
+                flatCount++;
+            } else {
+                if (flatCount > 1) {
+                    if (count + 2 > pads.length) {
+                        pads = Arrays.copyOf(pads, pads.length * 2);
+                    }
+                    pads[count++] = x;
+                    pads[count++] = flatCount;
+                }
+                flatCount = 0;
+            }
+        }
+        return Arrays.copyOf(pads, count);
+    }
+
+    /**
+     *
+     * @param landX The X position relative to the start of the land
+     * @return The score for landing at the given position
+     */
+    public int getLandingScore(double landX) {
+        int[] index = new int[2];
+        int flatCountR = 0;
+        int flatCountL = 0;
+
+        index[0] = (int) (Math.ceil((landX / SPACING)) * 2) + 3;
+        index[1] = (int) (Math.floor((landX / SPACING)) * 2) + 3;
+
+        double temp1, temp2;
+        temp1 = points[index[0] + 2];
+        temp2 = points[index[1] + 2];
+
+        while (temp1 == temp2) {
+            flatCountR++;
+            temp1 = points[index[0] + 2 + (2 * flatCountR)];
+            temp2 = points[index[1] + 2] + (2 * flatCountR);
+        }
+
+        temp1 = points[index[0] - 2];
+        temp2 = points[index[1] - 2];
+        while (temp1 == temp2) {
+            flatCountL++;
+            temp1 = points[index[0] - 2 - (2 * flatCountL)];
+            temp2 = points[index[1] - 2 - (2 * flatCountL)];
+        }
+
+        return 100 / (flatCountR + flatCountL + 1);
+    }
+}
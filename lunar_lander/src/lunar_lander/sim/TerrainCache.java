@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps recently generated land so the same seed is only generated once.
+ * Retries, replays and server sessions sharing seeds get back the same
+ * Terrain, along with the pads and label positions already worked out from
+ * it. The least recently used land is dropped once the cache holds more than
+ * its size in bytes.
+ *
+ * Land wider than one ParallelTerrainGenerator segment is generated in
+ * parallel, smaller land is exactly the same either way so it is generated
+ * on the calling thread.
+ *
+ * @author Mack
+ */
+public class TerrainCache {
+
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    private static final TerrainCache shared = new TerrainCache(DEFAULT_MAX_BYTES);
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Terrain> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    //guarded by this
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * What the land was generated from
+     */
+    private static final class Key {
+
+        final long seed;
+        final int landWidth;
+
+        Key(long seed, int landWidth) {
+            this.seed = seed;
+            this.landWidth = landWidth;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return seed == other.seed && landWidth == other.landWidth;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(seed) * 31 + landWidth;
+        }
+    }
+
+    /**
+     *
+     * @param maxBytes Bytes of land kept before the oldest is dropped
+     */
+    public TerrainCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     *
+     * @return The cache shared by the game, the server and the tools
+     */
+    public static TerrainCache getShared() {
+        return shared;
+    }
+
+    /**
+     *
+     * @param seed Seed of the random land
+     * @return A default sized piece of land
+     */
+    public Terrain get(long seed) {
+        return get(seed, Terrain.DEFAULT_POINTS);
+    }
+
+    /**
+     * Can be called from any thread. Land is generated outside the lock, two
+     * threads missing the same seed at once both generate it and the first
+     * one stored is kept.
+     *
+     * @param seed Seed of the random land
+     * @param landWidth Number of values (two per vertex) in the land
+     * @return The land, shared with every other caller of the same seed
+     */
+    public Terrain get(long seed, int landWidth) {
+        Key key = new Key(seed, landWidth);
+        synchronized (this) {
+            Terrain terrain = entries.get(key);
+            if (terrain != null) {
+                hits++;
+                return terrain;
+            }
+            misses++;
+        }
+
+        Terrain terrain = landWidth > ParallelTerrainGenerator.SEGMENT_VERTICES * 2 + 4
+                ? ParallelTerrainGenerator.generate(seed, landWidth)
+                : TerrainGenerator.generate(seed, landWidth);
+        terrain.getPadCentres();
+
+        synchronized (this) {
+            Terrain stored = entries.get(key);
+            if (stored != null) {
+                return stored;
+            }
+            long size = terrain.getSizeBytes();
+            if (size > maxBytes) {
+                return terrain;
+            }
+            entries.put(key, terrain);
+            bytes += size;
+
+            Iterator<Map.Entry<Key, Terrain>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().getValue().getSizeBytes();
+                it.remove();
+                evictions++;
+            }
+        }
+        return terrain;
+    }
+
+    /**
+     * Drops all the land, the counters are kept
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d lands, %d/%d bytes, hits %d, misses %d, evictions %d",
+                entries.size(), bytes, maxBytes, hits, misses, evictions);
+    }
+}
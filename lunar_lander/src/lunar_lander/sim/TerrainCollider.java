@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+/**
+ * Finds where a moving circle first touches the top of the land. The top of
+ * the land is the line through every vertex but the first and last, those
+ * close the Polygon along the bottom of the window. Segments are put in to
+ * cells of a fixed width, so a sweep only tests the few segments in the cells
+ * it passes over however long the land is.
+ *
+ * Coordinates are those of the land points, X from the start of the land and
+ * Y upwards (negative) from the bottom of the window.
+ *
+ * @author Mack
+ */
+public class TerrainCollider {
+
+    /**
+     * Width of one cell of the grid in pixels
+     */
+    public static final double CELL_WIDTH = 40;
+
+    private final double[] points;
+    private final int firstSegment;
+    private final int lastSegment;
+
+    //segments from cellStart[c] to cellEnd[c] (inclusive) reach in to cell c
+    private final int[] cellStart;
+    private final int[] cellEnd;
+
+    private double hitTime;
+
+    /**
+     *
+     * @param terrain The land to collide with
+     */
+    public TerrainCollider(Terrain terrain) {
+        this.points = terrain.getPoints();
+
+        //segment s runs from vertex s to vertex s + 1
+        firstSegment = 1;
+        lastSegment = points.length / 2 - 3;
+
+        double width = 0;
+        for (int a = 0; a < points.length; a += 2) {
+            width = Math.max(width, points[a]);
+        }
+        int cells = (int) (width / CELL_WIDTH) + 1;
+        cellStart = new int[cells];
+        cellEnd = new int[cells];
+        for (int c = 0; c < cells; c++) {
+            cellStart[c] = Integer.MAX_VALUE;
+            cellEnd[c] = -1;
+        }
+
+        for (int s = firstSegment; s <= lastSegment; s++) {
+            double left = Math.min(points[s * 2], points[s * 2 + 2]);
+            double right = Math.max(points[s * 2], points[s * 2 + 2]);
+            for (int c = cell(left); c <= cell(right); c++) {
+                cellStart[c] = Math.min(cellStart[c], s);
+                cellEnd[c] = Math.max(cellEnd[c], s);
+            }
+        }
+    }
+
+    private int cell(double x) {
+        return Math.max(0, Math.min(cellStart.length - 1, (int) Math.floor(x / CELL_WIDTH)));
+    }
+
+    /**
+     * Moves a circle with its middle from (x0, y0) to (x1, y1) and finds the
+     * first time it touches the top of the land from above, so a peak
+     * narrower than the circle can not pass between its bottom and its sides.
+     * The time of contact is kept until the next sweep.
+     *
+     * @param radius Radius of the circle, 0 sweeps a point
+     * @return If the circle touched the land
+     */
+    public boolean sweep(double x0, double y0, double x1, double y1, double radius) {
+        hitTime = Double.POSITIVE_INFINITY;
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+
+        int from = cell(Math.min(x0, x1) - radius);
+        int to = cell(Math.max(x0, x1) + radius);
+        for (int c = from; c <= to; c++) {
+            for (int s = cellStart[c]; s <= cellEnd[c]; s++) {
+                testSegment(s, x0, y0, dx, dy, radius);
+                testVertex(s, x0, y0, dx, dy, radius);
+                testVertex(s + 1, x0, y0, dx, dy, radius);
+            }
+        }
+
+        //already under the land, as when starting on it
+        if (hitTime == Double.POSITIVE_INFINITY && y1 + radius > heightAt(x1)) {
+            hitTime = 1;
+        }
+        return hitTime <= 1;
+    }
+
+    /**
+     * The circle touches the flat of a segment when its middle crosses the
+     * segment moved out of the land by the radius
+     */
+    private void testSegment(int s, double x0, double y0, double dx, double dy, double radius) {
+        double ex = points[s * 2 + 2] - points[s * 2];
+        double ey = points[s * 2 + 3] - points[s * 2 + 1];
+        double length = Math.sqrt(ex * ex + ey * ey);
+        if (length == 0) {
+            return;
+        }
+        //(ey, -ex) points out of the land as the segments run left to right
+        double ax = points[s * 2] + ey / length * radius;
+        double ay = points[s * 2 + 1] - ex / length * radius;
+
+        //solve x0 + t*d = a + u*e
+        double denom = dx * ey - dy * ex;
+        if (denom == 0) {
+            return;
+        }
+        double t = ((ax - x0) * ey - (ay - y0) * ex) / denom;
+        double u = ((ax - x0) * dy - (ay - y0) * dx) / denom;
+        if (t < 0 || t > 1 || u < 0 || u > 1 || t >= hitTime) {
+            return;
+        }
+
+        //only count crossings going down in to the land, (-ey, ex) points
+        //in to it as the segments run left to right
+        if (dy * ex - dx * ey <= 0) {
+            return;
+        }
+        hitTime = t;
+    }
+
+    /**
+     * The circle touches a vertex when its middle comes within the radius of
+     * it, only counted if it was not already
+     */
+    private void testVertex(int v, double x0, double y0, double dx, double dy, double radius) {
+        double fx = x0 - points[v * 2];
+        double fy = y0 - points[v * 2 + 1];
+        double a = dx * dx + dy * dy;
+        double b = 2 * (fx * dx + fy * dy);
+        double c = fx * fx + fy * fy - radius * radius;
+        double discriminant = b * b - 4 * a * c;
+        if (a == 0 || c <= 0 || discriminant < 0) {
+            return;
+        }
+        double t = (-b - Math.sqrt(discriminant)) / (2 * a);
+        if (t >= 0 && t <= 1 && t < hitTime) {
+            hitTime = t;
+        }
+    }
+
+    /**
+     *
+     * @param x X from the start of the land
+     * @return The height of the top of the land between the vertices
+     */
+    public double heightAt(double x) {
+        int c = cell(x);
+        for (int s = cellStart[c]; s <= cellEnd[c]; s++) {
+            double ax = points[s * 2];
+            double bx = points[s * 2 + 2];
+            if (x >= ax && x <= bx && bx > ax) {
+                double ay = points[s * 2 + 1];
+                return ay + (points[s * 2 + 3] - ay) * (x - ax) / (bx - ax);
+            }
+        }
+        return x < points[firstSegment * 2] ? points[firstSegment * 2 + 1] : points[lastSegment * 2 + 3];
+    }
+
+    /**
+     *
+     * @return Part of the sweep travelled before the contact, 0 to 1
+     */
+    public double getHitTime() {
+        return hitTime;
+    }
+}
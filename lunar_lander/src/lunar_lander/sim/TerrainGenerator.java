@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.util.Random;
+
+/**
+ * Generates random land from a seed, the same seed always gives the same land
+ *
+ * @author Mack
+ */
+public class TerrainGenerator {
+
+    private TerrainGenerator() {
+    }
+
+    /**
+     *
+     * @param seed Seed of the random land
+     * @return A default sized piece of land
+     */
+    public static Terrain generate(long seed) {
+        return generate(seed, Terrain.DEFAULT_POINTS);
+    }
+
+    /**
+     *
+     * @param seed Seed of the random land
+     * @param landWidth Number of values (two per vertex) to generate
+     * @return The generated land
+     */
+    public static Terrain generate(long seed, int landWidth) {
+        Random rand = new Random(seed);
+        double[] generatedLand = new double[landWidth];
+
+        //generate a randomiized land points
+        generatedLand[0] = 0.0;
+        generatedLand[1] = 0.0;
+
+        walk(rand, generatedLand, 2, landWidth - 2, -150);
+
+        generatedLand[landWidth - 2] = generatedLand[landWidth - 4];
+        generatedLand[landWidth - 1] = 0.0;
+
+        return new Terrain(seed, generatedLand);
+    }
+
+    /**
+     * Runs the random walk over part of the land, writing each vertex from
+     * its X and Y values at index from up to index to
+     *
+     * @param rand Where the random numbers come from
+     * @param generatedLand The land points in x,y format
+     * @param from Index of the X value of the first vertex
+     * @param to Index after the Y value of the last vertex
+     * @param lastPoint Height of the vertex before the first one
+     * @return Height of the last vertex
+     */
+    static double walk(Random rand, double[] generatedLand, int from, int to, double lastPoint) {
+        double spaceing = Terrain.SPACING;
+        double currentSpace = (from - 2) / 2 * spaceing;
+        double flatLandDevider = 1;
+
+        //refined chances
+        double hillUpChance = .42;
+        double hillDownChance = .84;
+
+        for (int a = from; a < to; a += 2) {
+            double centerChance = (lastPoint + 150) / 10000;
+
+            hillUpChance -= centerChance;
+            hillDownChance += centerChance;
+
+            double random = rand.nextDouble();
+
+            if (random <= (hillUpChance / flatLandDevider)) {
+                generatedLand[a] = currentSpace;
+                generatedLand[a + 1] = lastPoint + ((-rand.nextDouble() * 25) + 25);
+                flatLandDevider = 1;
+            } else if (random < (hillDownChance / flatLandDevider)) {
+                generatedLand[a] = currentSpace;
+                generatedLand[a + 1] = lastPoint + ((-rand.nextDouble() * 25) + 0);
+                flatLandDevider = 1;
+            } else {
+                generatedLand[a] = currentSpace;
+                generatedLand[a + 1] = lastPoint;
+                flatLandDevider = 2;
+            }
+            currentSpace = currentSpace + spaceing;
+            lastPoint = generatedLand[a + 1];
+        }
+        return lastPoint;
+    }
+}
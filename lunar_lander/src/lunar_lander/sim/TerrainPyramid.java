@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+/**
+ * The heights of a piece of land at every power of two resolution, keeping
+ * the lowest and highest point under each node. Level 0 has one node per top
+ * vertex, each level above has half as many. The lowest and highest point
+ * of any run of vertices is found by combining at most two nodes per level,
+ * so drawing the whole land at any size never goes through every vertex.
+ *
+ * Heights are as in Terrain, negative upwards, so the highest point is the
+ * smallest value.
+ *
+ * @author Mack
+ */
+public class TerrainPyramid {
+
+    private final int vertices;
+    private final double[][] low;
+    private final double[][] high;
+
+    //result of the last query
+    private double lowest;
+    private double highest;
+
+    /**
+     *
+     * @param terrain The land to build from
+     */
+    public TerrainPyramid(Terrain terrain) {
+        double[] points = terrain.getPoints();
+        //the top vertices run from the second to the second last
+        vertices = points.length / 2 - 2;
+
+        int levels = 1;
+        while ((vertices - 1) >> (levels - 1) > 0) {
+            levels++;
+        }
+        low = new double[levels][];
+        high = new double[levels][];
+
+        low[0] = new double[vertices];
+        high[0] = low[0];
+        for (int a = 0; a < vertices; a++) {
+            low[0][a] = points[a * 2 + 3];
+        }
+
+        for (int l = 1; l < levels; l++) {
+            int count = (low[l - 1].length + 1) / 2;
+            low[l] = new double[count];
+            high[l] = new double[count];
+            for (int a = 0; a < count; a++) {
+                int left = a * 2;
+                int right = Math.min(left + 1, low[l - 1].length - 1);
+                low[l][a] = Math.max(low[l - 1][left], low[l - 1][right]);
+                high[l][a] = Math.min(high[l - 1][left], high[l - 1][right]);
+            }
+        }
+    }
+
+    /**
+     * Finds the lowest and highest point of a run of vertices, read back with
+     * getLowest and getHighest
+     *
+     * @param from Index of the first top vertex
+     * @param to Index after the last top vertex, more than from
+     */
+    public void query(int from, int to) {
+        from = Math.max(0, Math.min(vertices - 1, from));
+        to = Math.max(from + 1, Math.min(vertices, to));
+        double lo = -Double.MAX_VALUE;
+        double hi = Double.MAX_VALUE;
+
+        for (int l = 0; from < to; l++) {
+            if ((from & 1) != 0) {
+                lo = Math.max(lo, low[l][from]);
+                hi = Math.min(hi, high[l][from]);
+                from++;
+            }
+            if ((to & 1) != 0) {
+                to--;
+                lo = Math.max(lo, low[l][to]);
+                hi = Math.min(hi, high[l][to]);
+            }
+            from >>= 1;
+            to >>= 1;
+        }
+        lowest = lo;
+        highest = hi;
+    }
+
+    /**
+     *
+     * @return Height of the lowest point found by the last query
+     */
+    public double getLowest() {
+        return lowest;
+    }
+
+    /**
+     *
+     * @return Height of the highest point found by the last query
+     */
+    public double getHighest() {
+        return highest;
+    }
+
+    /**
+     *
+     * @return Number of top vertices
+     */
+    public int getVertices() {
+        return vertices;
+    }
+}
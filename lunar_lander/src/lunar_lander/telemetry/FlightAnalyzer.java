@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.telemetry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lunar_lander.sim.LanderSimulation;
+import lunar_lander.sim.Terrain;
+import lunar_lander.sim.TerrainCache;
+
+/**
+ * Reads recorded flights and works out crash heatmaps, touchdown speeds,
+ * fuel left at landing and how often each pad score is landed on. Files are
+ * memory mapped and read in parallel, one task per file, and the totals of
+ * each are merged at the end. A touchdown is a record that is no longer
+ * flying straight after one that was.
+ *
+ * The land is regenerated from the seed in the records to find the pads, so
+ * flights on levels from a level pack (FLAG_PACK_LEVEL) are counted without
+ * pad scores.
+ *
+ * <pre>
+ * java lunar_lander.telemetry.FlightAnalyzer telemetry
+ * </pre>
+ *
+ * @author Mack
+ */
+public class FlightAnalyzer {
+
+    //largest part of a file mapped at once, a whole number of records
+    private static final long MAP_SIZE = (1L << 30) / FlightRecorder.RECORD_SIZE * FlightRecorder.RECORD_SIZE;
+
+    private final double maxLandingVelocity = new LanderSimulation(0).getMaxLandingVelocity();
+
+    /**
+     *
+     * @param directory Folder holding the flight files, searched all the way
+     * down
+     * @return Totals of every file
+     * @throws IOException if the folder can not be listed
+     */
+    public FlightStats analyze(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(p -> p.toString().endsWith(FlightRecorder.EXTENSION)).collect(Collectors.toList());
+        }
+        try {
+            return files.parallelStream()
+                    .map(this::analyzeFile)
+                    .collect(FlightStats::new, FlightStats::merge, FlightStats::merge);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     *
+     * @param file One flight file
+     * @return Totals of the file
+     */
+    private FlightStats analyzeFile(Path file) {
+        FlightStats stats = new FlightStats();
+        stats.files = 1;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FlightRecorder.HEADER_SIZE) {
+                return stats;
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FlightRecorder.HEADER_SIZE);
+            if (header.getInt(0) != FlightRecorder.MAGIC || header.getInt(4) != FlightRecorder.VERSION
+                    || header.getInt(8) != FlightRecorder.RECORD_SIZE) {
+                return stats;
+            }
+
+            byte last = FlightRecorder.LANDED;
+            long position = FlightRecorder.HEADER_SIZE;
+            long end = position + (size - position) / FlightRecorder.RECORD_SIZE * FlightRecorder.RECORD_SIZE;
+            while (position < end) {
+                long length = Math.min(MAP_SIZE, end - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                for (int at = 0; at < length; at += FlightRecorder.RECORD_SIZE) {
+                    byte outcome = buffer.get(at + FlightRecorder.OUTCOME);
+                    if (outcome != FlightRecorder.FLYING && last == FlightRecorder.FLYING) {
+                        touchdown(stats, buffer, at, outcome == FlightRecorder.LANDED);
+                    }
+                    last = outcome;
+                }
+                stats.records += length / FlightRecorder.RECORD_SIZE;
+                position += length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stats;
+    }
+
+    private void touchdown(FlightStats stats, MappedByteBuffer buffer, int at, boolean landed) {
+        double landX = buffer.getFloat(at + FlightRecorder.LAND_POSITION_X)
+                + buffer.getFloat(at + FlightRecorder.POSITION_X) + 12.5;
+        double speed = Math.abs(buffer.getFloat(at + FlightRecorder.VELOCITY_X))
+                + Math.abs(buffer.getFloat(at + FlightRecorder.VELOCITY_Y));
+
+        int padScore = 0;
+        if ((buffer.get(at + FlightRecorder.FLAGS) & FlightRecorder.FLAG_PACK_LEVEL) == 0) {
+            Terrain terrain = TerrainCache.getShared().get(buffer.getLong(at + FlightRecorder.SEED));
+            if (landX >= 0 && landX < terrain.getWidth() && terrain.isFlat(landX)) {
+                padScore = terrain.getLandingScore(landX);
+            }
+        }
+
+        stats.touchdown(landX, speed / maxLandingVelocity, buffer.getFloat(at + FlightRecorder.FUEL), landed, padScore);
+    }
+
+    /**
+     * Prints the tables for a folder of flights
+     *
+     * @param args Folder holding the flight files
+     * @throws IOException if the files can not be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "telemetry");
+        long start = System.nanoTime();
+        FlightStats stats = new FlightAnalyzer().analyze(directory);
+        stats.print(System.out);
+        System.err.printf("Read %d records in %.1f s%n", stats.records, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lunar_lander.sim.LanderSimulation;
+
+/**
+ * Records the flight state of every tick to files for looking at later.
+ * Records are put in to direct buffers made up front by the simulation
+ * thread. Full buffers are written out through a FileChannel by a
+ * background thread and then handed back, so recording never allocates or
+ * waits on the disk. If the writer falls behind, records are dropped and
+ * counted rather than holding up the game.
+ *
+ * A new file is started once one reaches its size limit. Each file starts
+ * with a HEADER_SIZE header (int MAGIC, int VERSION, int RECORD_SIZE, int 0)
+ * followed by little endian records of RECORD_SIZE bytes laid out as the
+ * offsets below.
+ *
+ * @author Mack
+ */
+public class FlightRecorder implements AutoCloseable {
+
+    public static final int MAGIC = 0x4C54454C; //LTEL
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 48;
+
+    public static final int TICK = 0;            //long
+    public static final int SEED = 8;            //long, seed of the land
+    public static final int LAND_POSITION_X = 16; //float
+    public static final int POSITION_X = 20;     //float
+    public static final int POSITION_Y = 24;     //float
+    public static final int VELOCITY_X = 28;     //float
+    public static final int VELOCITY_Y = 32;     //float
+    public static final int ROTATION = 36;       //float
+    public static final int FUEL = 40;           //float
+    public static final int THROTTLE = 44;       //short
+    public static final int OUTCOME = 46;        //byte, FLYING, LANDED or CRASHED
+    public static final int FLAGS = 47;          //byte
+
+    public static final byte FLYING = 0;
+    public static final byte LANDED = 1;
+    public static final byte CRASHED = 2;
+
+    public static final int FLAG_BOUNDS_WARNING = 1;
+    /**
+     * The LanderSimulation INPUT_ flags of the tick are kept in the flags
+     * shifted up by this
+     */
+    public static final int FLAG_INPUT_SHIFT = 1;
+    /**
+     * The land is a level of a level pack, the seed does not make it again
+     */
+    public static final int FLAG_PACK_LEVEL = 1 << 5;
+
+    public static final String EXTENSION = ".flight";
+
+    private static final int BUFFERS = 4;
+    private static final int BUFFER_RECORDS = 1024;
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final ArrayBlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final ArrayBlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFERS);
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_SIZE);
+    private final Thread writer;
+
+    //only used by the recording thread
+    private ByteBuffer current;
+
+    //only used by the writer thread
+    private FileChannel channel;
+    private long fileBytes;
+    private int fileNumber = 0;
+    private final long started = System.currentTimeMillis();
+
+    private volatile boolean closed = false;
+    private volatile long recorded = 0;
+    private volatile long dropped = 0;
+    //written by the writer thread only
+    private volatile long failed = 0;
+
+    /**
+     *
+     * @param directory Folder to write the files to
+     * @param maxFileBytes Size a file may grow to before the next is started
+     */
+    public FlightRecorder(Path directory, long maxFileBytes) {
+        this.directory = directory;
+        this.maxFileBytes = Math.max(HEADER_SIZE + RECORD_SIZE, maxFileBytes);
+        for (int x = 0; x < BUFFERS; x++) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * BUFFER_RECORDS);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            free.add(buffer);
+        }
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0);
+
+        writer = new Thread(this::writeLoop, "Flight Recorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Records the state of the simulation after a tick. Only one thread may
+     * record.
+     *
+     * @param sim The simulation that just ticked
+     * @param input The LanderSimulation INPUT_ flags the tick ran with
+     */
+    public void record(LanderSimulation sim, int input) {
+        if (current == null) {
+            current = free.poll();
+            if (current == null) {
+                dropped++;
+                return;
+            }
+        }
+
+        byte outcome = sim.isLanded() ? LANDED : sim.isCrashed() ? CRASHED : FLYING;
+        int at = current.position();
+        current.putLong(at + TICK, sim.getTick());
+        current.putLong(at + SEED, sim.getTerrain().getSeed());
+        current.putFloat(at + LAND_POSITION_X, (float) sim.getLandPositionX());
+        current.putFloat(at + POSITION_X, (float) sim.getPositionX());
+        current.putFloat(at + POSITION_Y, (float) sim.getPositionY());
+        current.putFloat(at + VELOCITY_X, (float) sim.getVelocityX());
+        current.putFloat(at + VELOCITY_Y, (float) sim.getVelocityY());
+        current.putFloat(at + ROTATION, (float) sim.getRotation());
+        current.putFloat(at + FUEL, (float) sim.getFuel());
+        current.putShort(at + THROTTLE, (short) sim.getThrottle());
+        current.put(at + OUTCOME, outcome);
+        current.put(at + FLAGS, (byte) ((sim.isBoundsWarning() ? FLAG_BOUNDS_WARNING : 0) | input << FLAG_INPUT_SHIFT
+                | (sim.getLevel() >= 0 ? FLAG_PACK_LEVEL : 0)));
+        current.position(at + RECORD_SIZE);
+        recorded++;
+
+        if (!current.hasRemaining()) {
+            hand();
+        }
+    }
+
+    /**
+     * Passes the current buffer to the writer, full has room for every
+     * buffer so this never waits
+     */
+    private void hand() {
+        current.flip();
+        full.add(current);
+        current = null;
+    }
+
+    private void writeLoop() {
+        while (!closed || !full.isEmpty()) {
+            try {
+                ByteBuffer buffer = full.poll(100, TimeUnit.MILLISECONDS);
+                if (buffer != null) {
+                    try {
+                        write(buffer);
+                    } catch (IOException e) {
+                        System.out.println("Could not write flight telemetry: " + e);
+                        failed += buffer.limit() / RECORD_SIZE;
+                        //the next buffer starts a new file, the disk may have recovered by then
+                        closeFile();
+                    } finally {
+                        buffer.clear();
+                        free.add(buffer);
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        closeFile();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (channel == null || fileBytes + buffer.remaining() > maxFileBytes) {
+            closeFile();
+            Files.createDirectories(directory);
+            Path file = directory.resolve("flight-" + started + "-" + (fileNumber++) + EXTENSION);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            header.rewind();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            fileBytes = HEADER_SIZE;
+        }
+        fileBytes += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeFile() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("Could not close flight telemetry: " + e);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes what is left and stops the writer. Must be called from the
+     * recording thread, or once it has stopped recording.
+     */
+    @Override
+    public void close() {
+        if (current != null && current.position() > 0) {
+            hand();
+        }
+        closed = true;
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     *
+     * @return Records lost because the writer was behind or could not write
+     */
+    public long getDropped() {
+        return dropped + failed;
+    }
+}
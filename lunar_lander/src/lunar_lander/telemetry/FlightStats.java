@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.telemetry;
+
+import java.io.PrintStream;
+
+/**
+ * Totals worked out from flight telemetry. Each file is added up in its own
+ * FlightStats and they are merged at the end, so files can be read in
+ * parallel without sharing anything.
+ *
+ * @author Mack
+ */
+public class FlightStats {
+
+    /**
+     * Width of a crash heatmap column in pixels of land
+     */
+    public static final int CRASH_BIN = 50;
+    public static final int CRASH_BINS = 200;
+
+    /**
+     * Touchdown speed bins in tenths of the max landing velocity, the last
+     * bin holds everything faster
+     */
+    public static final int SPEED_BINS = 31;
+
+    public static final int FUEL_BIN = 500;
+    public static final int FUEL_BINS = 21;
+
+    /**
+     * Landing scores go up to 100, indexed by score
+     */
+    public static final int PAD_SCORES = 101;
+
+    long files;
+    long records;
+    long touchdowns;
+    long landings;
+    long crashes;
+
+    final long[] crashHeatmap = new long[CRASH_BINS];
+    final long[] speeds = new long[SPEED_BINS];
+    final long[] landedSpeeds = new long[SPEED_BINS];
+    final long[] fuel = new long[FUEL_BINS];
+    final long[] padAttempts = new long[PAD_SCORES];
+    final long[] padLandings = new long[PAD_SCORES];
+
+    /**
+     * Counts one touchdown
+     *
+     * @param landX Where it touched down, from the start of the land
+     * @param speedRatio Speed as a part of the max landing velocity
+     * @param fuelLeft Fuel at touchdown
+     * @param landed If it landed rather than crashed
+     * @param padScore Score of the pad it came down on, 0 if not on a pad
+     */
+    void touchdown(double landX, double speedRatio, double fuelLeft, boolean landed, int padScore) {
+        touchdowns++;
+        int speed = bin(speedRatio * 10, SPEED_BINS);
+        speeds[speed]++;
+        if (landed) {
+            landings++;
+            landedSpeeds[speed]++;
+            fuel[bin(fuelLeft / FUEL_BIN, FUEL_BINS)]++;
+        } else {
+            crashes++;
+            crashHeatmap[bin(landX / CRASH_BIN, CRASH_BINS)]++;
+        }
+        if (padScore > 0 && padScore < PAD_SCORES) {
+            padAttempts[padScore]++;
+            if (landed) {
+                padLandings[padScore]++;
+            }
+        }
+    }
+
+    private static int bin(double value, int bins) {
+        return Math.max(0, Math.min(bins - 1, (int) value));
+    }
+
+    /**
+     *
+     * @param other Totals to add to these
+     * @return These totals
+     */
+    public FlightStats merge(FlightStats other) {
+        files += other.files;
+        records += other.records;
+        touchdowns += other.touchdowns;
+        landings += other.landings;
+        crashes += other.crashes;
+        add(crashHeatmap, other.crashHeatmap);
+        add(speeds, other.speeds);
+        add(landedSpeeds, other.landedSpeeds);
+        add(fuel, other.fuel);
+        add(padAttempts, other.padAttempts);
+        add(padLandings, other.padLandings);
+        return this;
+    }
+
+    private static void add(long[] to, long[] from) {
+        for (int x = 0; x < to.length; x++) {
+            to[x] += from[x];
+        }
+    }
+
+    /**
+     * Prints every table as comma separated values
+     *
+     * @param out Where to print
+     */
+    public void print(PrintStream out) {
+        out.println("files,records,touchdowns,landings,crashes");
+        out.println(files + "," + records + "," + touchdowns + "," + landings + "," + crashes);
+
+        out.println();
+        out.println("crash land x,crashes");
+        for (int x = 0; x < CRASH_BINS; x++) {
+            if (crashHeatmap[x] > 0) {
+                out.println(x * CRASH_BIN + "," + crashHeatmap[x]);
+            }
+        }
+
+        out.println();
+        out.println("touchdown speed / max landing velocity,touchdowns,landings");
+        for (int x = 0; x < SPEED_BINS; x++) {
+            String label = x == SPEED_BINS - 1 ? ">=" + x / 10.0 : String.valueOf(x / 10.0);
+            out.println(label + "," + speeds[x] + "," + landedSpeeds[x]);
+        }
+
+        out.println();
+        out.println("fuel at landing,landings");
+        for (int x = 0; x < FUEL_BINS; x++) {
+            out.println(x * FUEL_BIN + "," + fuel[x]);
+        }
+
+        out.println();
+        out.println("pad score,attempts,landings,success rate");
+        for (int x = 1; x < PAD_SCORES; x++) {
+            if (padAttempts[x] > 0) {
+                out.printf("%d,%d,%d,%.3f%n", x, padAttempts[x], padLandings[x], (double) padLandings[x] / padAttempts[x]);
+            }
+        }
+    }
+
+    public long getTouchdowns() {
+        return touchdowns;
+    }
+
+    public long getLandings() {
+        return landings;
+    }
+
+    public long getCrashes() {
+        return crashes;
+    }
+}
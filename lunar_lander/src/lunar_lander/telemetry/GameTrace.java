@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.telemetry;
+
+import lunar_lander.sim.Terrain;
+
+/**
+ * Marks frames, particle bursts, new land, round resets and landings for a
+ * profiler, so a recording shows which of them a GC or allocation spike lines
+ * up with.
+ *
+ * The Java Flight Recorder events behind it are in lunar_lander.telemetry.jfr.
+ * They need jdk.jfr, which Java 8 only has from 8u262, so they are left out of
+ * the main compile and built after it when the JDK has them. The game loads
+ * them by name and falls back to {@link #NONE} when they are missing.
+ *
+ * Every begin is followed by its end on the same thread before the next begin
+ * of the same kind.
+ *
+ * @author Mack
+ */
+public interface GameTrace {
+
+    /**
+     * Records nothing
+     */
+    GameTrace NONE = new GameTrace() {
+    };
+
+    /**
+     *
+     * @return The flight recorder events if they were built and the JDK has
+     * jdk.jfr, otherwise {@link #NONE}
+     */
+    static GameTrace load() {
+        try {
+            return (GameTrace) Class.forName("lunar_lander.telemetry.jfr.JfrGameTrace").newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Starts a run of the game loop
+     */
+    default void beginFrame() {
+    }
+
+    /**
+     *
+     * @return If the parts of this frame should be timed for
+     * {@link #endFrame}
+     */
+    default boolean isFrameTimed() {
+        return false;
+    }
+
+    /**
+     * Only needs calling if {@link #isFrameTimed()}
+     *
+     * @param tick Simulation tick shown by the frame
+     * @param readNanos Time taking the newest state and replaying its events
+     * @param ghostNanos Time moving the ghosts
+     * @param particleNanos Time moving the particles
+     * @param hudNanos Time updating the HUD
+     */
+    default void endFrame(long tick, long readNanos, long ghostNanos, long particleNanos, long hudNanos) {
+    }
+
+    /**
+     * Starts spawning particles for thrust or a crash
+     */
+    default void beginBurst() {
+    }
+
+    /**
+     *
+     * @param crash If the burst is a crash explosion rather than thrust
+     * @param wanted Particles the effect would spawn at full quality
+     * @param spawned Particles spawned
+     * @param level Quality level of the particle governor
+     */
+    default void endBurst(boolean crash, int wanted, int spawned, double level) {
+    }
+
+    /**
+     * Starts putting new land in to the game world
+     */
+    default void beginLand() {
+    }
+
+    /**
+     *
+     * @param terrain The land put in, only looked at while recording
+     */
+    default void endLand(Terrain terrain) {
+    }
+
+    /**
+     * Starts a new round or game
+     */
+    default void beginRoundReset() {
+    }
+
+    /**
+     *
+     * @param gameOver If a new game was started
+     * @param round The new round
+     * @param score Score of the game before the reset
+     */
+    default void endRoundReset(boolean gameOver, int round, int score) {
+    }
+
+    /**
+     * The lander reaching the ground
+     *
+     * @param landed False if the lander crashed
+     * @param velocityX Velocity across at touchdown
+     * @param velocityY Velocity down at touchdown
+     * @param points Points of the landing
+     * @param seed Seed of the land
+     */
+    default void touchdown(boolean landed, double velocityX, double velocityY, int points, long seed) {
+    }
+}
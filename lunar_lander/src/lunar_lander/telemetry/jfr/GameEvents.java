@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.telemetry.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of the game, so a recording shows which frame,
+ * burst of particles, new land or landing a GC or allocation spike lines up
+ * with. None of them take a stack trace and they cost next to nothing while
+ * no recording is running. The game uses them through {@link JfrGameTrace}.
+ *
+ * <pre>
+ * java -XX:StartFlightRecording=filename=lander.jfr ...
+ * </pre>
+ *
+ * @author Mack
+ */
+public final class GameEvents {
+
+    private GameEvents() {
+    }
+
+    /**
+     * One run of the game loop, with the time spent in each part of it
+     */
+    @Name("lunar_lander.Frame")
+    @Label("Frame")
+    @Category({"Lunar Lander", "Frames"})
+    @StackTrace(false)
+    public static class Frame extends Event {
+
+        @Label("Tick")
+        @Description("Simulation tick shown by the frame")
+        public long tick;
+
+        @Label("Read State")
+        @Description("Taking the newest state and replaying its events")
+        @Timespan(Timespan.NANOSECONDS)
+        public long readNanos;
+
+        @Label("Ghosts")
+        @Timespan(Timespan.NANOSECONDS)
+        public long ghostNanos;
+
+        @Label("Particles")
+        @Timespan(Timespan.NANOSECONDS)
+        public long particleNanos;
+
+        @Label("HUD")
+        @Timespan(Timespan.NANOSECONDS)
+        public long hudNanos;
+    }
+
+    /**
+     * Particles spawned at once by thrust or a crash
+     */
+    @Name("lunar_lander.ParticleBurst")
+    @Label("Particle Burst")
+    @Category({"Lunar Lander", "Particles"})
+    @StackTrace(false)
+    public static class ParticleBurst extends Event {
+
+        @Label("Crash")
+        @Description("If the burst is a crash explosion rather than thrust")
+        public boolean crash;
+
+        @Label("Wanted")
+        @Description("Particles the effect would spawn at full quality")
+        public int wanted;
+
+        @Label("Spawned")
+        public int spawned;
+
+        @Label("Quality Level")
+        public double level;
+    }
+
+    /**
+     * Land put in to the game world
+     */
+    @Name("lunar_lander.Land")
+    @Label("New Land")
+    @Category({"Lunar Lander", "Land"})
+    @StackTrace(false)
+    public static class Land extends Event {
+
+        @Label("Seed")
+        public long seed;
+
+        @Label("Vertices")
+        public int vertices;
+
+        @Label("Pads")
+        public int pads;
+    }
+
+    /**
+     * A new round or game after a landing or crash
+     */
+    @Name("lunar_lander.RoundReset")
+    @Label("Round Reset")
+    @Category({"Lunar Lander", "Rounds"})
+    @StackTrace(false)
+    public static class RoundReset extends Event {
+
+        @Label("Game Over")
+        public boolean gameOver;
+
+        @Label("Round")
+        public int round;
+
+        @Label("Score")
+        public int score;
+    }
+
+    /**
+     * The lander reaching the ground
+     */
+    @Name("lunar_lander.Touchdown")
+    @Label("Touchdown")
+    @Category({"Lunar Lander", "Rounds"})
+    @StackTrace(false)
+    public static class Touchdown extends Event {
+
+        @Label("Landed")
+        @Description("False if the lander crashed")
+        public boolean landed;
+
+        @Label("Velocity X")
+        public double velocityX;
+
+        @Label("Velocity Y")
+        public double velocityY;
+
+        @Label("Points")
+        public int points;
+
+        @Label("Seed")
+        public long seed;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.telemetry.jfr;
+
+import jdk.jfr.EventType;
+import lunar_lander.sim.Terrain;
+import lunar_lander.telemetry.GameTrace;
+
+/**
+ * Sends the trace of the game to the Java Flight Recorder as
+ * {@link GameEvents}. Loaded by name from {@link GameTrace#load()}.
+ *
+ * @author Mack
+ */
+public class JfrGameTrace implements GameTrace {
+
+    private static final EventType FRAME = EventType.getEventType(GameEvents.Frame.class);
+
+    private GameEvents.Frame frame;
+    private GameEvents.ParticleBurst burst;
+    private GameEvents.Land land;
+    private GameEvents.RoundReset reset;
+
+    @Override
+    public void beginFrame() {
+        //a frame event is only made while a recording wants it
+        frame = null;
+        if (FRAME.isEnabled()) {
+            frame = new GameEvents.Frame();
+            frame.begin();
+        }
+    }
+
+    @Override
+    public boolean isFrameTimed() {
+        return frame != null;
+    }
+
+    @Override
+    public void endFrame(long tick, long readNanos, long ghostNanos, long particleNanos, long hudNanos) {
+        if (frame != null && frame.shouldCommit()) {
+            frame.tick = tick;
+            frame.readNanos = readNanos;
+            frame.ghostNanos = ghostNanos;
+            frame.particleNanos = particleNanos;
+            frame.hudNanos = hudNanos;
+            frame.commit();
+        }
+        frame = null;
+    }
+
+    @Override
+    public void beginBurst() {
+        burst = new GameEvents.ParticleBurst();
+        burst.begin();
+    }
+
+    @Override
+    public void endBurst(boolean crash, int wanted, int spawned, double level) {
+        if (burst.shouldCommit()) {
+            burst.crash = crash;
+            burst.wanted = wanted;
+            burst.spawned = spawned;
+            burst.level = level;
+            burst.commit();
+        }
+        burst = null;
+    }
+
+    @Override
+    public void beginLand() {
+        land = new GameEvents.Land();
+        land.begin();
+    }
+
+    @Override
+    public void endLand(Terrain terrain) {
+        if (land.shouldCommit()) {
+            land.seed = terrain.getSeed();
+            land.vertices = terrain.getPointCount() / 2;
+            land.pads = terrain.findPads().length / 2;
+            land.commit();
+        }
+        land = null;
+    }
+
+    @Override
+    public void beginRoundReset() {
+        reset = new GameEvents.RoundReset();
+        reset.begin();
+    }
+
+    @Override
+    public void endRoundReset(boolean gameOver, int round, int score) {
+        if (reset.shouldCommit()) {
+            reset.gameOver = gameOver;
+            reset.round = round;
+            reset.score = score;
+            reset.commit();
+        }
+        reset = null;
+    }
+
+    @Override
+    public void touchdown(boolean landed, double velocityX, double velocityY, int points, long seed) {
+        GameEvents.Touchdown event = new GameEvents.Touchdown();
+        if (event.isEnabled()) {
+            event.landed = landed;
+            event.velocityX = velocityX;
+            event.velocityY = velocityY;
+            event.points = points;
+            event.seed = seed;
+            event.commit();
+        }
+    }
+}
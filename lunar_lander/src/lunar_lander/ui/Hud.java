@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import com.almasb.fxgl.ui.UIFactory;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import lunar_lander.sim.SimulationState;
+
+/**
+ * The numbers shown around the screen. Values are read from the simulation
+ * every frame but only the ones that changed are written to their Text, and
+ * only a few times a second. Small values use cached strings, the rest are
+ * formatted in to a reused char buffer.
+ *
+ * @author Mack
+ */
+public class Hud {
+
+    /**
+     * Default number of times per second the text is updated
+     */
+    public static final int DEFAULT_REFRESH_RATE = 15;
+
+    private final IntField score;
+    private final IntField fuel;
+    private final IntField throttle;
+    private final IntField lives;
+    private final IntField velocityX;
+    private final IntField velocityY;
+
+    private final int refreshTicks;
+    private int ticksToRefresh = 0;
+
+    private boolean safe = false;
+    private boolean safeDirty = true;
+
+    /**
+     * An int shown after a fixed label
+     */
+    private static class IntField {
+
+        private final Text text;
+        private final char[] buffer;
+        private final int prefixLength;
+        private final String suffix;
+        private final int cacheMin;
+        private final String[] cache;
+
+        private int value = Integer.MIN_VALUE;
+        private boolean dirty = false;
+
+        IntField(Text text, String prefix, String suffix, int cacheMin, int cacheMax) {
+            this.text = text;
+            this.prefixLength = prefix.length();
+            this.suffix = suffix;
+            this.buffer = new char[prefixLength + 11 + suffix.length()];
+            prefix.getChars(0, prefixLength, buffer, 0);
+            this.cacheMin = cacheMin;
+            this.cache = new String[cacheMax - cacheMin + 1];
+        }
+
+        void set(int value) {
+            if (value != this.value) {
+                this.value = value;
+                dirty = true;
+            }
+        }
+
+        void push() {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            int index = value - cacheMin;
+            if (index >= 0 && index < cache.length) {
+                if (cache[index] == null) {
+                    cache[index] = format();
+                }
+                text.setText(cache[index]);
+            } else {
+                text.setText(format());
+            }
+        }
+
+        private String format() {
+            int end = buffer.length - suffix.length();
+            int pos = end;
+            long v = Math.abs((long) value);
+            do {
+                buffer[--pos] = (char) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            if (value < 0) {
+                buffer[--pos] = '-';
+            }
+            int digits = end - pos;
+            System.arraycopy(buffer, pos, buffer, prefixLength, digits);
+            suffix.getChars(0, suffix.length(), buffer, prefixLength + digits);
+            return new String(buffer, 0, prefixLength + digits + suffix.length());
+        }
+    }
+
+    /**
+     *
+     * @param factory Factory making the game's text
+     * @param refreshRate Number of text updates per second at 60 ticks a second
+     */
+    public Hud(UIFactory factory, int refreshRate) {
+        this.refreshTicks = Math.max(1, 60 / Math.max(1, refreshRate));
+
+        score = new IntField(newText(factory, 800, 50), "Score: ", "", 0, 1000);
+        fuel = new IntField(newText(factory, 800, 100), "Fuel: ", "", 0, 0);
+        throttle = new IntField(newText(factory, 800, 150), "Throttle: ", "%", 0, 100);
+        lives = new IntField(newText(factory, 800, 200), "Lives: ", "", 0, 9);
+        velocityX = new IntField(newText(factory, 50, 50), "X-velocity = ", "", -200, 200);
+        velocityY = new IntField(newText(factory, 50, 100), "Y-velocity = ", "", -200, 200);
+    }
+
+    private static Text newText(UIFactory factory, double x, double y) {
+        Text text = factory.newText("", Color.WHITE, 18);
+        text.setTranslateX(x);
+        text.setTranslateY(y);
+        return text;
+    }
+
+    /**
+     * Add these to the UI once
+     *
+     * @return All nodes of the HUD
+     */
+    public Node[] getNodes() {
+        return new Node[]{score.text, fuel.text, throttle.text, lives.text, velocityX.text, velocityY.text};
+    }
+
+    /**
+     * Reads the simulation, call once per loop update
+     *
+     * @param sim The newest state of the simulation
+     */
+    public void update(SimulationState sim) {
+        score.set(sim.getScore());
+        fuel.set((int) sim.getFuel());
+        throttle.set(sim.getThrottle());
+        lives.set(sim.getLives());
+        velocityX.set((int) (sim.getVelocityX() * 100));
+        velocityY.set((int) (sim.getVelocityY() * 100));
+
+        //green if the velocity is acceptable for landing
+        boolean nowSafe = sim.isSafeVelocity();
+        if (nowSafe != safe) {
+            safe = nowSafe;
+            safeDirty = true;
+        }
+
+        if (--ticksToRefresh <= 0) {
+            ticksToRefresh = refreshTicks;
+            refresh();
+        }
+    }
+
+    /**
+     * Writes all changed values to their text straight away
+     */
+    public void refresh() {
+        score.push();
+        fuel.push();
+        throttle.push();
+        lives.push();
+        velocityX.push();
+        velocityY.push();
+
+        if (safeDirty) {
+            safeDirty = false;
+            Color color = safe ? Color.LIGHTGREEN : Color.WHITE;
+            velocityX.text.setFill(color);
+            velocityY.text.setFill(color);
+        }
+    }
+}
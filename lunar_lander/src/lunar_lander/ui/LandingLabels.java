@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import com.almasb.fxgl.scene.GameScene;
+import com.almasb.fxgl.ui.UIFactory;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import lunar_lander.sim.Terrain;
+
+/**
+ * The score labels above the landing pads. Only pads on screen, plus a
+ * margin, have a Text; labels are taken from a pool as pads scroll in and
+ * handed back as they scroll out. Pooled Text stays in the scene hidden, so
+ * nodes are never added or removed while playing.
+ *
+ * @author Mack
+ */
+public class LandingLabels {
+
+    private static final double MARGIN = 100;
+    private static final int MAX_SCORE = 100;
+
+    //enough for a screen of pads, made up front so they sit under the HUD
+    private static final int PREPARED = 16;
+
+    private final UIFactory factory;
+    private final GameScene scene;
+    private final int width;
+    private final int height;
+
+    private final ArrayDeque<Text> pool = new ArrayDeque<>();
+    private final String[] scoreTexts = new String[MAX_SCORE + 1];
+
+    //pads of the current land, sorted by x
+    private double[] padX = new double[0];
+    private double[] padY = new double[0];
+    private int[] padScore = new int[0];
+    private Text[] labels = new Text[0];
+
+    //pads from first up to last (exclusive) have a label
+    private int first = 0;
+    private int last = 0;
+
+    private double origin;
+    private int created = 0;
+
+    /**
+     *
+     * @param factory Factory making the game's text
+     * @param scene Scene the labels are added to
+     * @param width Width of the window
+     * @param height Height of the window
+     */
+    public LandingLabels(UIFactory factory, GameScene scene, int width, int height) {
+        this.factory = factory;
+        this.scene = scene;
+        this.width = width;
+        this.height = height;
+
+        for (int x = 0; x < PREPARED; x++) {
+            pool.push(newLabel());
+        }
+    }
+
+    /**
+     * Replaces the labels with the pads of new land
+     *
+     * @param terrain The new land
+     * @param x Screen X position of the start of the land
+     */
+    public void setTerrain(Terrain terrain, double x) {
+        for (int a = first; a < last; a++) {
+            release(a);
+        }
+        first = 0;
+        last = 0;
+
+        int[] pads = terrain.findPads();
+        double[] centres = terrain.getPadCentres();
+        double[] points = terrain.getPoints();
+        int count = pads.length / 2;
+        padX = new double[count];
+        padY = new double[count];
+        padScore = new int[count];
+        labels = new Text[count];
+
+        for (int a = 0; a < count; a++) {
+            int end = pads[a * 2];
+            int flatCount = pads[a * 2 + 1];
+            padX[a] = centres[a];
+            padY[a] = height + points[end * 2 + 3] - 5;
+            padScore[a] = MAX_SCORE / flatCount;
+        }
+
+        origin = x;
+        update();
+    }
+
+    /**
+     * Moves the labels along with the land
+     *
+     * @param x Amount the land moved by
+     */
+    public void scroll(double x) {
+        origin += x;
+        update();
+    }
+
+    /**
+     * Gives labels to pads that came in to view, takes them from pads that
+     * left and moves the rest
+     */
+    private void update() {
+        int from = lowerBound(-MARGIN - origin);
+        int to = lowerBound(width + MARGIN - origin);
+
+        for (int a = first; a < last; a++) {
+            if (a < from || a >= to) {
+                release(a);
+            }
+        }
+        for (int a = from; a < to; a++) {
+            Text label = labels[a];
+            if (label == null) {
+                label = acquire(padScore[a]);
+                label.setTranslateY(padY[a]);
+                labels[a] = label;
+            }
+            label.setTranslateX(padX[a] + origin);
+        }
+        first = from;
+        last = to;
+    }
+
+    /**
+     *
+     * @return Index of the first pad at or right of x
+     */
+    private int lowerBound(double x) {
+        int index = Arrays.binarySearch(padX, x);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private Text acquire(int score) {
+        Text label = pool.poll();
+        if (label == null) {
+            label = newLabel();
+        }
+        if (score >= 0 && score <= MAX_SCORE) {
+            if (scoreTexts[score] == null) {
+                scoreTexts[score] = Integer.toString(score);
+            }
+            label.setText(scoreTexts[score]);
+        } else {
+            label.setText(Integer.toString(score));
+        }
+        label.setVisible(true);
+        return label;
+    }
+
+    private Text newLabel() {
+        Text label = factory.newText("", Color.WHITE, 15);
+        label.setVisible(false);
+        scene.addUINodes(label);
+        created++;
+        return label;
+    }
+
+    private void release(int pad) {
+        Text label = labels[pad];
+        if (label != null) {
+            label.setVisible(false);
+            pool.push(label);
+            labels[pad] = null;
+        }
+    }
+
+    /**
+     *
+     * @return Number of labels showing
+     */
+    public int getLiveCount() {
+        return last - first;
+    }
+
+    /**
+     *
+     * @return Number of Text nodes ever made, shown or pooled
+     */
+    public int getCreatedCount() {
+        return created;
+    }
+}
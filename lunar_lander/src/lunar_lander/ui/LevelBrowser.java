@@ -0,0 +1,289 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import com.almasb.fxgl.ui.UIFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import lunar_lander.sim.Terrain;
+
+/**
+ * A scrolling grid of land to pick from. Only the rows in view have nodes,
+ * the same cells are moved and refilled as the grid scrolls. Pictures are
+ * drawn by Thumbnails on its workers and only turned in to images once they
+ * are in view, a few per frame, so scrolling through any number of levels
+ * keeps the frame rate.
+ *
+ * @author Mack
+ */
+public class LevelBrowser {
+
+    public static final int COLUMNS = 5;
+    public static final int THUMB_WIDTH = 160;
+    public static final int THUMB_HEIGHT = 64;
+
+    private static final int CELL_WIDTH = 180;
+    private static final int CELL_HEIGHT = 100;
+    private static final int TOP = 60;
+
+    //images made per frame, the rest wait for the next frame
+    private static final int UPLOADS_PER_FRAME = 8;
+    //images kept for cells that scrolled away
+    private static final int KEPT_IMAGES = 200;
+
+    /**
+     * The levels to show
+     */
+    public interface Source {
+
+        /**
+         *
+         * @return Number of levels
+         */
+        int size();
+
+        /**
+         *
+         * @param index Index of the level
+         * @return Name the picture is saved under, the same for the same land
+         */
+        String getKey(int index);
+
+        /**
+         *
+         * @param index Index of the level
+         * @return Name shown under the picture
+         */
+        String getName(int index);
+
+        /**
+         * Called on a worker thread
+         *
+         * @param index Index of the level
+         * @return The land of the level
+         */
+        Terrain getTerrain(int index);
+    }
+
+    /**
+     * One place in the grid
+     */
+    private static class Cell {
+
+        final ImageView image = new ImageView();
+        final Text name;
+        int index = -1;
+
+        Cell(Text name) {
+            this.name = name;
+        }
+    }
+
+    private final Thumbnails thumbnails;
+    private final Source source;
+    private final int height;
+    private final Pane view = new Pane();
+    private final Cell[] cells;
+    private final Set<Integer> requested = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<Integer, WritableImage> images = new LinkedHashMap<Integer, WritableImage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, WritableImage> eldest) {
+            return size() > KEPT_IMAGES;
+        }
+    };
+
+    private double scroll = 0;
+    //levels in view, read by the workers
+    private volatile int firstShown = 0;
+    private volatile int lastShown = -1;
+
+    /**
+     *
+     * @param factory Factory making the game's text
+     * @param width Width of the window
+     * @param height Height of the window
+     * @param thumbnails Draws the pictures
+     * @param source The levels to show
+     * @param onChosen Called on the FX thread with the index of the level
+     * clicked
+     */
+    public LevelBrowser(UIFactory factory, int width, int height, Thumbnails thumbnails, Source source,
+            IntConsumer onChosen) {
+        this.thumbnails = thumbnails;
+        this.source = source;
+        this.height = height;
+
+        Rectangle background = new Rectangle(width, height, Color.rgb(0, 0, 0, 0.85));
+        view.getChildren().add(background);
+        Text title = factory.newText("Choose land", Color.WHITE, 30);
+        title.setTranslateX(50);
+        title.setTranslateY(40);
+        view.getChildren().add(title);
+
+        int rows = (height - TOP) / CELL_HEIGHT + 2;
+        int left = (width - COLUMNS * CELL_WIDTH) / 2;
+        cells = new Cell[rows * COLUMNS];
+        for (int x = 0; x < cells.length; x++) {
+            Cell cell = new Cell(factory.newText("", Color.WHITE, 14));
+            cell.image.setTranslateX(left + x % COLUMNS * CELL_WIDTH);
+            cell.name.setTranslateX(left + x % COLUMNS * CELL_WIDTH);
+            cell.image.setOnMouseClicked(e -> {
+                if (cell.index >= 0) {
+                    onChosen.accept(cell.index);
+                }
+            });
+            cells[x] = cell;
+            view.getChildren().addAll(cell.image, cell.name);
+        }
+
+        view.setOnScroll(e -> scrollBy(-e.getDeltaY()));
+        view.setVisible(false);
+        layout();
+    }
+
+    public Node getNode() {
+        return view;
+    }
+
+    public boolean isShowing() {
+        return view.isVisible();
+    }
+
+    /**
+     *
+     * @param show If the browser should be shown
+     */
+    public void setShowing(boolean show) {
+        view.setVisible(show);
+        if (show) {
+            layout();
+        }
+    }
+
+    /**
+     * Moves the grid, cells that scroll out are reused for the rows coming in
+     *
+     * @param pixels Amount to scroll down by
+     */
+    public void scrollBy(double pixels) {
+        int rows = (source.size() + COLUMNS - 1) / COLUMNS;
+        double max = Math.max(0, rows * CELL_HEIGHT - (height - TOP));
+        scroll = Math.max(0, Math.min(max, scroll + pixels));
+        layout();
+    }
+
+    /**
+     * Call every frame while showing, turns finished pictures in view in to
+     * images
+     */
+    public void update() {
+        Thumbnails.Thumbnail thumbnail;
+        int uploads = 0;
+        while (uploads < UPLOADS_PER_FRAME && (thumbnail = thumbnails.poll()) != null) {
+            int index = thumbnail.getIndex();
+            requested.remove(index);
+            if (thumbnail.isSkipped()) {
+                //it may have scrolled back in after the worker skipped it
+                Cell cell = cells[index % cells.length];
+                if (cell.index == index && !images.containsKey(index)) {
+                    request(index);
+                }
+                continue;
+            }
+            if (index < firstShown || index > lastShown) {
+                //scrolled away meanwhile, it is read back from disk if needed
+                continue;
+            }
+            WritableImage image = new WritableImage(thumbnails.getWidth(), thumbnails.getHeight());
+            image.getPixelWriter().setPixels(0, 0, thumbnails.getWidth(), thumbnails.getHeight(),
+                    PixelFormat.getIntArgbPreInstance(), thumbnail.getPixels(), 0, thumbnails.getWidth());
+            images.put(index, image);
+            uploads++;
+
+            Cell cell = cells[index % cells.length];
+            if (cell.index == index) {
+                cell.image.setImage(image);
+            }
+        }
+    }
+
+    /**
+     * Puts the cells at the rows in view and asks for their pictures
+     */
+    private void layout() {
+        int firstRow = (int) (scroll / CELL_HEIGHT);
+        firstShown = firstRow * COLUMNS;
+        lastShown = Math.min(source.size(), firstShown + cells.length) - 1;
+
+        //each level always has the same cell, so a row scrolling in takes the
+        //cells of the row that scrolled out and the others are left alone
+        for (int x = 0; x < cells.length; x++) {
+            int index = firstShown + x;
+            Cell cell = cells[index % cells.length];
+            double y = TOP + (firstRow + x / COLUMNS) * CELL_HEIGHT - scroll;
+            cell.image.setTranslateY(y);
+            cell.name.setTranslateY(y + THUMB_HEIGHT + 16);
+
+            if (index >= source.size()) {
+                cell.index = -1;
+                cell.image.setVisible(false);
+                cell.name.setVisible(false);
+                continue;
+            }
+            cell.image.setVisible(true);
+            cell.name.setVisible(true);
+            if (cell.index == index) {
+                continue;
+            }
+            cell.index = index;
+            cell.name.setText(source.getName(index));
+            WritableImage image = images.get(index);
+            cell.image.setImage(image);
+            if (image == null) {
+                request(index);
+            }
+        }
+    }
+
+    /**
+     * Asks for a picture unless it has been asked for already
+     */
+    private void request(int index) {
+        if (requested.add(index)) {
+            thumbnails.request(index, source.getKey(index), () -> source.getTerrain(index),
+                    () -> index >= firstShown && index <= lastShown);
+        }
+    }
+}
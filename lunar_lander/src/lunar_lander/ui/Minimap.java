@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import lunar_lander.sim.Terrain;
+import lunar_lander.sim.TerrainPyramid;
+
+/**
+ * A small map of the whole land with its pads, the part in the window and
+ * the lander. The land is drawn once per terrain from a TerrainPyramid, one
+ * query per column, so it costs the same however long the land is. As the
+ * lander moves only the columns around the old and new markers are put back
+ * and redrawn.
+ *
+ * @author Mack
+ */
+public class Minimap {
+
+    private static final int BACKGROUND = 0x80000000;
+    private static final int LAND = 0xFFB0B0B0;
+    private static final int SURFACE = 0xFF606060;
+    private static final int PAD = 0xFF00C000;
+    private static final int VIEW = 0xFF4080FF;
+    private static final int LANDER = 0xFFFFFFFF;
+
+    private final int width;
+    private final int height;
+    private final int windowWidth;
+    private final int windowHeight;
+    private final int[] base;
+    private final int[] pixels;
+    private final WritableImage image;
+    private final ImageView view;
+
+    private Terrain terrain;
+    private TerrainPyramid pyramid;
+    //land pixels per minimap column
+    private double scale = 1;
+
+    //where the markers were last drawn, left is -1 before the first draw
+    private int viewLeft = -1;
+    private int viewRight = -1;
+    private int landerColumn = -1;
+    private int landerRow = -1;
+
+    /**
+     *
+     * @param width Width of the map in pixels
+     * @param height Height of the map in pixels
+     * @param windowWidth Width of the window
+     * @param windowHeight Height of the window, the map covers it top to
+     * bottom
+     */
+    public Minimap(int width, int height, int windowWidth, int windowHeight) {
+        this.width = width;
+        this.height = height;
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        this.base = new int[width * height];
+        this.pixels = new int[width * height];
+        this.image = new WritableImage(width, height);
+        this.view = new ImageView(image);
+        view.setMouseTransparent(true);
+    }
+
+    /**
+     * Draws new land, nothing is redrawn if it is the land already drawn
+     *
+     * @param terrain The land to show
+     */
+    public void setTerrain(Terrain terrain) {
+        if (terrain == this.terrain) {
+            return;
+        }
+        this.terrain = terrain;
+        pyramid = new TerrainPyramid(terrain);
+        scale = (double) terrain.getWidth() / width;
+
+        int vertices = pyramid.getVertices();
+        for (int col = 0; col < width; col++) {
+            pyramid.query((int) ((long) col * vertices / width), (int) ((long) (col + 1) * vertices / width));
+            int top = row(windowHeight + pyramid.getHighest());
+            int surface = row(windowHeight + pyramid.getLowest());
+            for (int r = 0; r < height; r++) {
+                base[r * width + col] = r < top ? BACKGROUND : r < surface ? SURFACE : LAND;
+            }
+        }
+
+        int[] pads = terrain.findPads();
+        double[] centres = terrain.getPadCentres();
+        double[] points = terrain.getPoints();
+        for (int a = 0; a < centres.length; a++) {
+            int end = pads[a * 2];
+            double half = pads[a * 2 + 1] * Terrain.SPACING / 2;
+            int r = Math.max(0, row(windowHeight + points[end * 2 + 3]) - 1);
+            int from = Math.max(0, (int) ((centres[a] - half) / scale));
+            int to = Math.min(width - 1, (int) ((centres[a] + half) / scale));
+            for (int col = from; col <= to; col++) {
+                base[r * width + col] = PAD;
+            }
+        }
+
+        viewLeft = -1;
+        System.arraycopy(base, 0, pixels, 0, pixels.length);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+    }
+
+    /**
+     * Moves the markers, only the columns that changed are written to the
+     * image
+     *
+     * @param landPositionX The scroll position of the land
+     * @param landX Position of the lander relative to the start of the land
+     * @param y Screen Y position of the lander
+     */
+    public void update(double landPositionX, double landX, double y) {
+        if (terrain == null) {
+            return;
+        }
+        int left = clamp((int) (landPositionX / scale), width - 1);
+        int right = clamp((int) ((landPositionX + windowWidth) / scale), width - 1);
+        int column = clamp((int) (landX / scale), width - 1);
+        int r = clamp(row(y), height - 1);
+        if (left == viewLeft && right == viewRight && column == landerColumn && r == landerRow) {
+            return;
+        }
+
+        //put back the land under the old markers, then draw the new ones
+        int from = viewLeft < 0 ? 0 : Math.min(Math.min(viewLeft, left), Math.max(0, Math.min(landerColumn, column) - 1));
+        int to = viewLeft < 0 ? width - 1 : Math.max(Math.max(viewRight, right), Math.min(width - 1, Math.max(landerColumn, column) + 1));
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(base, row * width + from, pixels, row * width + from, to - from + 1);
+        }
+
+        for (int col = left; col <= right; col++) {
+            pixels[col] = VIEW;
+            pixels[(height - 1) * width + col] = VIEW;
+        }
+        for (int row = 0; row < height; row++) {
+            pixels[row * width + left] = VIEW;
+            pixels[row * width + right] = VIEW;
+        }
+        for (int row = Math.max(0, r - 1); row <= Math.min(height - 1, r + 1); row++) {
+            for (int col = Math.max(0, column - 1); col <= Math.min(width - 1, column + 1); col++) {
+                pixels[row * width + col] = LANDER;
+            }
+        }
+
+        viewLeft = left;
+        viewRight = right;
+        landerColumn = column;
+        landerRow = r;
+        image.getPixelWriter().setPixels(from, 0, to - from + 1, height, PixelFormat.getIntArgbPreInstance(),
+                pixels, from, width);
+    }
+
+    /**
+     *
+     * @return The node showing the map
+     */
+    public Node getNode() {
+        return view;
+    }
+
+    /**
+     *
+     * @param y Screen Y position
+     * @return Row of the map
+     */
+    private int row(double y) {
+        return (int) (y * height / windowHeight);
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+}
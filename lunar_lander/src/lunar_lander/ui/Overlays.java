@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import com.almasb.fxgl.ui.UIFactory;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+
+/**
+ * The in game messages: landing banners, the out of bounds warning, round
+ * summaries and the game over screen. All nodes are made once and added to
+ * the scene once, showing a message only changes their text and visibility.
+ * Messages are timed in game loop ticks.
+ *
+ * @author Mack
+ */
+public class Overlays {
+
+    private static final int BANNER_TICKS = 300;
+    private static final int SUMMARY_TICKS = 120;
+    private static final int GAME_OVER_TICKS = 240;
+
+    private static final String CRASHED = "Unsuccessful Landing";
+    private static final String WARNING = "Turn Around";
+
+    private final Text banner;
+    private final Text warning;
+    private final Text summary;
+    private final Rectangle gameOverBg;
+    private final Text gameOverTitle;
+    private final Text gameOverText;
+
+    //landing banner text for every score, made when first needed
+    private final String[] landedTexts = new String[101];
+    //reused for the texts with numbers in, only the final String is new
+    private final StringBuilder line = new StringBuilder(64);
+
+    private int bannerTicks = 0;
+    private int summaryTicks = 0;
+    private int gameOverTicks = 0;
+
+    /**
+     *
+     * @param factory Factory making the game's text
+     * @param width Width of the window
+     * @param height Height of the window
+     */
+    public Overlays(UIFactory factory, int width, int height) {
+        banner = factory.newText("", Color.GREEN, 50);
+        banner.setTranslateY(300);
+
+        warning = factory.newText(WARNING, Color.RED, 50);
+        warning.setTranslateX(300);
+        warning.setTranslateY(400);
+
+        summary = factory.newText("", Color.WHITE, 24);
+        summary.setTranslateX(50);
+        summary.setTranslateY(250);
+
+        gameOverBg = new Rectangle(width, height, Color.rgb(0, 0, 0, .75));
+        gameOverTitle = factory.newText("Game Over", Color.RED, 70);
+        gameOverTitle.setTranslateX(width / 2 - 170);
+        gameOverTitle.setTranslateY(height / 2 - 50);
+        gameOverText = factory.newText("", Color.WHITE, 24);
+        gameOverText.setTranslateX(width / 2 - 170);
+        gameOverText.setTranslateY(height / 2 + 10);
+
+        for (Node node : getNodes()) {
+            node.setVisible(false);
+            node.setMouseTransparent(true);
+        }
+    }
+
+    /**
+     * Add these to the UI once
+     *
+     * @return All nodes of the overlays
+     */
+    public Node[] getNodes() {
+        return new Node[]{banner, warning, summary, gameOverBg, gameOverTitle, gameOverText};
+    }
+
+    /**
+     * Counts down the shown messages, call once per loop update
+     */
+    public void update() {
+        if (bannerTicks > 0 && --bannerTicks == 0) {
+            banner.setVisible(false);
+        }
+        if (summaryTicks > 0 && --summaryTicks == 0) {
+            summary.setVisible(false);
+        }
+        if (gameOverTicks > 0 && --gameOverTicks == 0) {
+            gameOverBg.setVisible(false);
+            gameOverTitle.setVisible(false);
+            gameOverText.setVisible(false);
+        }
+    }
+
+    /**
+     *
+     * @param points The score added for the landing
+     */
+    public void showLanded(int points) {
+        if (points >= 0 && points < landedTexts.length) {
+            if (landedTexts[points] == null) {
+                landedTexts[points] = "Successful Landing " + points + " Points";
+            }
+            banner.setText(landedTexts[points]);
+        } else {
+            line.setLength(0);
+            line.append("Successful Landing ").append(points).append(" Points");
+            banner.setText(line.toString());
+        }
+        banner.setFill(Color.GREEN);
+        banner.setTranslateX(50);
+        showBanner();
+    }
+
+    public void showCrashed() {
+        banner.setText(CRASHED);
+        banner.setFill(Color.RED);
+        banner.setTranslateX(200);
+        showBanner();
+    }
+
+    private void showBanner() {
+        banner.setVisible(true);
+        bannerTicks = BANNER_TICKS;
+    }
+
+    public void hideBanner() {
+        banner.setVisible(false);
+        bannerTicks = 0;
+    }
+
+    /**
+     *
+     * @param show If the Turn Around warning should be shown
+     */
+    public void showWarning(boolean show) {
+        warning.setVisible(show);
+    }
+
+    /**
+     * Shows a short summary at the start of a round
+     *
+     * @param round Number of the round
+     * @param score Current score
+     * @param lives Lives left
+     */
+    public void showSummary(int round, int score, int lives) {
+        line.setLength(0);
+        line.append("Round ").append(round).append("   Score ").append(score).append("   Lives ").append(lives);
+        summary.setText(line.toString());
+        summary.setVisible(true);
+        summaryTicks = SUMMARY_TICKS;
+    }
+
+    /**
+     *
+     * @param score Final score
+     * @param rank Rank of the score
+     * @param total Number of ranked scores
+     */
+    public void showGameOver(int score, long rank, long total) {
+        line.setLength(0);
+        line.append("Your final score was ").append(score).append("\nRank ").append(rank).append(" of ").append(total);
+        gameOverText.setText(line.toString());
+        gameOverBg.setVisible(true);
+        gameOverTitle.setVisible(true);
+        gameOverText.setVisible(true);
+        summary.setVisible(false);
+        summaryTicks = 0;
+        gameOverTicks = GAME_OVER_TICKS;
+    }
+
+    /**
+     * The game is held while the game over screen is up
+     *
+     * @return If the game over screen is shown
+     */
+    public boolean isGameOverShowing() {
+        return gameOverTicks > 0;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import java.util.Arrays;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import lunar_lander.sim.Terrain;
+
+/**
+ * The land drawn in to images once per terrain instead of a Polygon with a
+ * vertex for every point. The land is cut in to chunks so no image gets
+ * bigger than the graphics card allows, only chunks in the window are
+ * shown. Drawing it is a few image copies however many points the land has.
+ *
+ * @author Mack
+ */
+public class TerrainLayer {
+
+    /**
+     * Width of one chunk in pixels
+     */
+    public static final int DEFAULT_CHUNK_WIDTH = 256;
+
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private final int windowWidth;
+    private final int chunkWidth;
+
+    private Terrain terrain;
+    private WritableImage[] images = new WritableImage[0];
+    private Pane view = new Pane();
+    private ImageView[] chunks = new ImageView[0];
+    private int[] pixels = new int[0];
+
+    //screen X of the start of the land
+    private double origin;
+
+    /**
+     *
+     * @param windowWidth Width of the window
+     * @param chunkWidth Width of each cached image
+     */
+    public TerrainLayer(int windowWidth, int chunkWidth) {
+        this.windowWidth = windowWidth;
+        this.chunkWidth = chunkWidth;
+    }
+
+    /**
+     * Draws the images of new land and puts them in a new node. Nothing is
+     * redrawn if it is the land that is already cached, the new node shows
+     * the same images.
+     *
+     * @param terrain The land to draw
+     * @param x Screen X position of the start of the land
+     */
+    public void setTerrain(Terrain terrain, double x) {
+        origin = x;
+        if (terrain != this.terrain) {
+            this.terrain = terrain;
+            rasterise(terrain.getPoints());
+        }
+        makeView();
+        updateVisible();
+    }
+
+    /**
+     * Moves the land, only which chunks are visible is worked out again
+     *
+     * @param x Amount the land moved by
+     */
+    public void scroll(double x) {
+        origin += x;
+        updateVisible();
+    }
+
+    /**
+     * A new node is made each time land is set, even the same land again, as
+     * the old one may still be the view of the old land entity
+     *
+     * @return The node holding the images, at the same local position the
+     * land Polygon would have
+     */
+    public Node getNode() {
+        return view;
+    }
+
+    /**
+     * Puts an image view of every chunk in a new node, the views of the old
+     * node are left with it
+     */
+    private void makeView() {
+        view = new Pane();
+        chunks = new ImageView[images.length];
+        for (int c = 0; c < images.length; c++) {
+            ImageView chunk = new ImageView(images[c]);
+            chunk.setTranslateX(c * chunkWidth);
+            chunk.setTranslateY(-images[c].getHeight());
+            chunks[c] = chunk;
+            view.getChildren().add(chunk);
+        }
+    }
+
+    private void updateVisible() {
+        for (int x = 0; x < chunks.length; x++) {
+            double left = origin + (double) x * chunkWidth;
+            chunks[x].setVisible(left + chunkWidth > 0 && left < windowWidth);
+        }
+    }
+
+    /**
+     * Fills every pixel under the top of the land, the top pixel of each
+     * column is blended by how much of it is covered
+     *
+     * @param points The land points in x,y format
+     */
+    private void rasterise(double[] points) {
+        double minY = 0;
+        double maxX = 0;
+        for (int a = 0; a < points.length; a += 2) {
+            maxX = Math.max(maxX, points[a]);
+            minY = Math.min(minY, points[a + 1]);
+        }
+        int width = (int) Math.ceil(maxX);
+        int height = (int) Math.ceil(-minY) + 1;
+
+        int count = Math.max(1, (width + chunkWidth - 1) / chunkWidth);
+        images = new WritableImage[count];
+
+        if (pixels.length < chunkWidth * height) {
+            pixels = new int[chunkWidth * height];
+        }
+
+        //the top edge runs from the second to the second last vertex
+        int segment = 1;
+        int lastSegment = points.length / 2 - 3;
+
+        for (int c = 0; c < count; c++) {
+            int start = c * chunkWidth;
+            int w = Math.max(1, Math.min(chunkWidth, width - start));
+            Arrays.fill(pixels, 0, w * height, 0);
+
+            for (int col = 0; col < w; col++) {
+                double px = start + col + 0.5;
+                while (segment < lastSegment && points[(segment + 1) * 2] < px) {
+                    segment++;
+                }
+                double x0 = points[segment * 2];
+                double x1 = points[(segment + 1) * 2];
+                double y0 = points[segment * 2 + 1];
+                double y1 = points[(segment + 1) * 2 + 1];
+                double top = x1 == x0 ? y1 : y0 + (y1 - y0) * (px - x0) / (x1 - x0);
+
+                //rows are counted from the top of the image at -height
+                double row = top + height;
+                int full = (int) Math.ceil(row);
+                if (full > 0 && full - row > 0) {
+                    int v = (int) Math.round((full - row) * 255);
+                    pixels[(full - 1) * w + col] = v << 24 | v << 16 | v << 8 | v;
+                }
+                for (int r = Math.max(0, full); r < height; r++) {
+                    pixels[r * w + col] = WHITE;
+                }
+            }
+
+            images[c] = new WritableImage(w, height);
+            images[c].getPixelWriter().setPixels(0, 0, w, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, w);
+        }
+    }
+}
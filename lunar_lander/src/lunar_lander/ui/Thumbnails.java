@@ -0,0 +1,275 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import lunar_lander.sim.Terrain;
+import lunar_lander.sim.TerrainPyramid;
+
+/**
+ * Draws small pictures of land on a pool of worker threads, straight in to
+ * int pixel arrays without touching the scene graph. Finished pictures are
+ * kept on disk so the next time they are only read back, and are queued for
+ * the FX thread to take a few at a time.
+ *
+ * Each thumbnail file is a THUMB_MAGIC int, the width and height and then
+ * the premultiplied ARGB pixels, all big endian.
+ *
+ * @author Mack
+ */
+public class Thumbnails {
+
+    private static final int THUMB_MAGIC = 0x4C544842; //LTHB
+    private static final int HEADER_SIZE = 12;
+
+    private static final int SKY = 0xFF000000;
+    private static final int LAND = 0xFFFFFFFF;
+    private static final int PAD = 0xFF00C000;
+
+    private final Path directory;
+    private final int width;
+    private final int height;
+    private final ExecutorService workers;
+    private final ConcurrentLinkedQueue<Thumbnail> finished = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A finished picture waiting for the FX thread, or a request that was
+     * skipped
+     */
+    public static class Thumbnail {
+
+        private final int index;
+        private final int[] pixels;
+
+        Thumbnail(int index, int[] pixels) {
+            this.index = index;
+            this.pixels = pixels;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         *
+         * @return Premultiplied ARGB pixels, row by row, null if skipped
+         */
+        public int[] getPixels() {
+            return pixels;
+        }
+
+        /**
+         *
+         * @return If the picture was no longer wanted when a worker got to
+         * it, it may be asked for again
+         */
+        public boolean isSkipped() {
+            return pixels == null;
+        }
+    }
+
+    /**
+     * Uses the thumbnails folder of the profiles, with a worker per core but
+     * one
+     *
+     * @param width Width of each picture
+     * @param height Height of each picture
+     */
+    public Thumbnails(int width, int height) {
+        this(Paths.get("profiles", "thumbnails"), width, height,
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     *
+     * @param directory Folder to keep the pictures in
+     * @param width Width of each picture
+     * @param height Height of each picture
+     * @param threads Number of workers
+     */
+    public Thumbnails(Path directory, int width, int height, int threads) {
+        this.directory = directory;
+        this.width = width;
+        this.height = height;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Thumbnails");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Reads or draws a picture in the background, it is skipped if no longer
+     * wanted by the time a worker gets to it. Either way poll gives back a
+     * Thumbnail for every request.
+     *
+     * @param index Passed back with the picture
+     * @param key Name of the land, the same land must always have the same
+     * key
+     * @param land Gives the land, only called if the picture is not on disk
+     * @param wanted If the picture is still needed, called on a worker
+     */
+    public void request(int index, String key, Supplier<Terrain> land, BooleanSupplier wanted) {
+        workers.execute(() -> {
+            if (!wanted.getAsBoolean()) {
+                finished.add(new Thumbnail(index, null));
+                return;
+            }
+            Path file = directory.resolve(key + "-" + width + "x" + height + ".thumb");
+            int[] pixels = read(file);
+            if (pixels == null) {
+                pixels = render(land.get(), width, height);
+                write(file, pixels);
+            }
+            finished.add(new Thumbnail(index, pixels));
+        });
+    }
+
+    /**
+     * FX thread only
+     *
+     * @return The next finished picture, null if there are none
+     */
+    public Thumbnail poll() {
+        return finished.poll();
+    }
+
+    /**
+     * Drops the finished pictures nobody took
+     */
+    public void clear() {
+        finished.clear();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Fills under the land, scaled so the highest point is near the top, and
+     * marks the pads
+     *
+     * @param terrain The land to draw
+     * @param width Width of the picture
+     * @param height Height of the picture
+     * @return Premultiplied ARGB pixels, row by row
+     */
+    public static int[] render(Terrain terrain, int width, int height) {
+        int[] pixels = new int[width * height];
+        TerrainPyramid pyramid = new TerrainPyramid(terrain);
+        int vertices = pyramid.getVertices();
+
+        pyramid.query(0, vertices);
+        double depth = Math.max(1, -pyramid.getHighest()) / 0.9;
+
+        for (int col = 0; col < width; col++) {
+            pyramid.query((int) ((long) col * vertices / width), (int) ((long) (col + 1) * vertices / width));
+            int top = height - (int) Math.round(-pyramid.getHighest() / depth * height);
+            for (int r = 0; r < height; r++) {
+                pixels[r * width + col] = r < top ? SKY : LAND;
+            }
+        }
+
+        int[] pads = terrain.findPads();
+        double[] centres = terrain.getPadCentres();
+        double[] points = terrain.getPoints();
+        double scale = (double) terrain.getWidth() / width;
+        for (int a = 0; a < centres.length; a++) {
+            int end = pads[a * 2];
+            double half = pads[a * 2 + 1] * Terrain.SPACING / 2;
+            int r = Math.max(0, Math.min(height - 1, height - (int) Math.round(-points[end * 2 + 3] / depth * height)));
+            int from = Math.max(0, (int) ((centres[a] - half) / scale));
+            int to = Math.min(width - 1, (int) ((centres[a] + half) / scale));
+            for (int col = from; col <= to; col++) {
+                pixels[r * width + col] = PAD;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     *
+     * @return The pixels in the file, null if there is no usable file
+     */
+    private int[] read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + width * height * 4);
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer);
+            }
+            buffer.flip();
+            if (buffer.remaining() != buffer.capacity() || buffer.getInt() != THUMB_MAGIC
+                    || buffer.getInt() != width || buffer.getInt() != height) {
+                return null;
+            }
+            int[] pixels = new int[width * height];
+            buffer.asIntBuffer().get(pixels);
+            return pixels;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void write(Path file, int[] pixels) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + pixels.length * 4);
+        buffer.putInt(THUMB_MAGIC).putInt(width).putInt(height);
+        buffer.asIntBuffer().put(pixels);
+        //the int view does not move the position, write from the header on
+        buffer.rewind();
+        try {
+            Files.createDirectories(directory);
+            //written under another name first so a reader never sees half a file
+            Path temp = Files.createTempFile(directory, "thumb", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Could not save thumbnail: " + e);
+        }
+    }
+}
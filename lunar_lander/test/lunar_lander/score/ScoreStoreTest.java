@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.score;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author Mack
+ */
+public class ScoreStoreTest {
+
+    //enough scores for close() to compact the log
+    private static final int SCORES = 10000;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("leaderboard");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private ScoreStore fill() throws IOException {
+        ScoreStore store = new ScoreStore(directory);
+        store.load();
+        for (int x = 0; x < SCORES; x++) {
+            store.submitGame("player" + (x % 10), x);
+            store.submitLanding("player" + (x % 10), 7, x % 100);
+        }
+        return store;
+    }
+
+    private void assertCounts(ScoreStore store) {
+        assertEquals(SCORES, store.getGlobal().size());
+        assertEquals(SCORES, store.getLand(7).size());
+        assertEquals(SCORES - 1, store.getGlobal().bestOf("player9"));
+    }
+
+    @Test
+    public void testCompactedScoresAreReadBack() throws IOException {
+        fill().close();
+        ScoreStore reopened = new ScoreStore(directory);
+        reopened.load();
+        assertCounts(reopened);
+        reopened.close();
+    }
+
+    @Test
+    public void testCutOffCompactionIsNotCountedTwice() throws Exception {
+        ScoreStore store = fill();
+        //header then 30 bytes a record, both boards get a record each round
+        Path log = directory.resolve("leaderboard.log");
+        long written = 12 + SCORES * 2 * 30;
+        for (int x = 0; x < 500 && Files.size(log) != written; x++) {
+            Thread.sleep(10);
+        }
+        assertEquals(written, Files.size(log));
+        Path saved = directory.resolve("saved.log");
+        Files.copy(log, saved);
+        store.close();
+
+        //the new snapshot next to the old log, as if the game died before
+        //the log was replaced
+        Files.move(saved, log, StandardCopyOption.REPLACE_EXISTING);
+        ScoreStore reopened = new ScoreStore(directory);
+        reopened.load();
+        assertCounts(reopened);
+
+        //scores added after such a start must still be kept
+        reopened.submitGame("player9", SCORES);
+        reopened.close();
+        ScoreStore last = new ScoreStore(directory);
+        last.load();
+        assertEquals(SCORES + 1, last.getGlobal().size());
+        assertEquals(SCORES, last.getGlobal().bestOf("player9"));
+        last.close();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * @author Mack
+ */
+public class LevelPackTest {
+
+    private static final int LEVELS = 3;
+
+    private Path file;
+    private byte[] pack;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("levels", ".pack");
+        LevelPackWriter writer = new LevelPackWriter();
+        for (int x = 0; x < LEVELS; x++) {
+            writer.add(TerrainGenerator.generate(x), 200, 100, 10000, 2);
+        }
+        writer.write(file);
+        pack = Files.readAllBytes(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    private static long offset(ByteBuffer buffer, int level) {
+        return buffer.getLong(LevelPack.HEADER_SIZE + level * 8);
+    }
+
+    /**
+     * Opens the changed pack and checks it is turned down because of the level
+     */
+    private void assertRejected(byte[] changed, int level) {
+        try {
+            LevelPack.wrap(ByteBuffer.wrap(changed));
+            fail("opened a broken pack");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Level " + level + " "));
+        }
+    }
+
+    @Test
+    public void testLevelsAreReadBack() throws IOException {
+        LevelPack levels = LevelPack.open(file);
+        assertEquals(LEVELS, levels.size());
+        for (int x = 0; x < LEVELS; x++) {
+            Terrain terrain = TerrainGenerator.generate(x);
+            Terrain read = levels.readTerrain(x);
+            assertEquals(x, read.getSeed());
+            assertEquals(terrain.getPointCount(), read.getPointCount());
+            assertArrayEquals(terrain.findPads(), read.findPads());
+        }
+    }
+
+    @Test
+    public void testCutOffPackIsRejected() {
+        assertRejected(Arrays.copyOf(pack, pack.length - 1), LEVELS - 1);
+    }
+
+    @Test
+    public void testBadOffsetIsRejected() {
+        ByteBuffer buffer = ByteBuffer.wrap(pack.clone());
+        buffer.putLong(LevelPack.HEADER_SIZE + 8, pack.length);
+        assertRejected(buffer.array(), 1);
+    }
+
+    @Test
+    public void testBadCountsAreRejected() {
+        ByteBuffer buffer = ByteBuffer.wrap(pack.clone());
+        //vertex count
+        buffer.putInt((int) offset(buffer, 0) + 8, Integer.MAX_VALUE);
+        assertRejected(buffer.array(), 0);
+
+        buffer = ByteBuffer.wrap(pack.clone());
+        //pad count
+        buffer.putInt((int) offset(buffer, 2) + 28, -1);
+        assertRejected(buffer.array(), 2);
+    }
+}
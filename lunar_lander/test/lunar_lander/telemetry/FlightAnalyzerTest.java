@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lunar_lander.sim.Terrain;
+import lunar_lander.sim.TerrainCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author Mack
+ */
+public class FlightAnalyzerTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("flights");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Writes a flight file that flies for a few ticks before each outcome
+     */
+    private void writeFlight(String name, byte... outcomes) throws IOException {
+        writeFlight(name, 512.5, 0, outcomes);
+    }
+
+    /**
+     *
+     * @param landX Where the lander comes down, relative to the start of the
+     * land of seed 1
+     * @param flags FLAGS of every record
+     */
+    private void writeFlight(String name, double landX, int flags, byte... outcomes) throws IOException {
+        int flying = 3;
+        ByteBuffer buffer = ByteBuffer.allocate(FlightRecorder.HEADER_SIZE
+                + outcomes.length * (flying + 1) * FlightRecorder.RECORD_SIZE);
+        buffer.putInt(FlightRecorder.MAGIC).putInt(FlightRecorder.VERSION).putInt(FlightRecorder.RECORD_SIZE).putInt(0);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        long tick = 0;
+        for (byte outcome : outcomes) {
+            for (int x = 0; x <= flying; x++) {
+                int at = buffer.position();
+                buffer.putLong(at + FlightRecorder.TICK, tick++);
+                buffer.putLong(at + FlightRecorder.SEED, 1);
+                buffer.putFloat(at + FlightRecorder.POSITION_X, (float) (landX - 12.5));
+                buffer.put(at + FlightRecorder.FLAGS, (byte) flags);
+                buffer.put(at + FlightRecorder.OUTCOME, x < flying ? FlightRecorder.FLYING : outcome);
+                buffer.position(at + FlightRecorder.RECORD_SIZE);
+            }
+        }
+        Files.write(directory.resolve(name + FlightRecorder.EXTENSION), buffer.array());
+    }
+
+    @Test
+    public void testCountsEveryFileOnce() throws IOException {
+        int files = 200;
+        for (int x = 0; x < files; x++) {
+            writeFlight("flight-" + x, FlightRecorder.LANDED, FlightRecorder.CRASHED, FlightRecorder.CRASHED);
+        }
+
+        FlightStats stats = new FlightAnalyzer().analyze(directory);
+
+        assertEquals(files, stats.files);
+        assertEquals(files * 3 * 4, stats.records);
+        assertEquals(files * 3, stats.getTouchdowns());
+        assertEquals(files, stats.getLandings());
+        assertEquals(files * 2, stats.getCrashes());
+        long heatmap = 0;
+        for (long crashes : stats.crashHeatmap) {
+            heatmap += crashes;
+        }
+        assertEquals(files * 2, heatmap);
+    }
+
+    @Test
+    public void testPackLevelsGetNoPadScores() throws IOException {
+        Terrain terrain = TerrainCache.getShared().get(1);
+        double pad = terrain.getPadCentres()[0];
+        int score = terrain.getLandingScore(pad);
+        writeFlight("generated", pad, 0, FlightRecorder.LANDED);
+        writeFlight("pack", pad, FlightRecorder.FLAG_PACK_LEVEL, FlightRecorder.LANDED, FlightRecorder.LANDED);
+
+        FlightStats stats = new FlightAnalyzer().analyze(directory);
+
+        assertEquals(3, stats.getLandings());
+        long attempts = 0;
+        for (long padAttempts : stats.padAttempts) {
+            attempts += padAttempts;
+        }
+        assertEquals(1, attempts);
+        assertEquals(1, stats.padLandings[score]);
+    }
+
+    @Test
+    public void testEmptyFolder() throws IOException {
+        FlightStats stats = new FlightAnalyzer().analyze(directory);
+
+        assertEquals(0, stats.files);
+        assertEquals(0, stats.getTouchdowns());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 Mackenzie G.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lunar_lander.ui;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import lunar_lander.sim.Terrain;
+import lunar_lander.sim.TerrainCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author Mack
+ */
+public class ThumbnailsTest {
+
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 64;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("thumbnails");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static Thumbnails.Thumbnail take(Thumbnails thumbnails) throws InterruptedException {
+        for (int x = 0; x < 500; x++) {
+            Thumbnails.Thumbnail thumbnail = thumbnails.poll();
+            if (thumbnail != null) {
+                return thumbnail;
+            }
+            Thread.sleep(10);
+        }
+        return null;
+    }
+
+    @Test
+    public void testSavedThumbnailIsReadBack() throws Exception {
+        Terrain terrain = TerrainCache.getShared().get(7);
+        Thumbnails first = new Thumbnails(directory, WIDTH, HEIGHT, 1);
+        first.request(3, "seed-7", () -> terrain, () -> true);
+        Thumbnails.Thumbnail drawn = take(first);
+        assertNotNull(drawn);
+        assertEquals(3, drawn.getIndex());
+        assertArrayEquals(Thumbnails.render(terrain, WIDTH, HEIGHT), drawn.getPixels());
+
+        Path file = directory.resolve("seed-7-" + WIDTH + "x" + HEIGHT + ".thumb");
+        assertEquals(12 + WIDTH * HEIGHT * 4, Files.size(file));
+
+        //a new instance must not need the land
+        Supplier<Terrain> none = () -> {
+            throw new AssertionError("drawn again instead of read from disk");
+        };
+        Thumbnails second = new Thumbnails(directory, WIDTH, HEIGHT, 1);
+        second.request(3, "seed-7", none, () -> true);
+        Thumbnails.Thumbnail read = take(second);
+        assertNotNull(read);
+        assertArrayEquals(drawn.getPixels(), read.getPixels());
+    }
+
+    @Test
+    public void testSkippedRequestIsReported() throws Exception {
+        Thumbnails thumbnails = new Thumbnails(directory, WIDTH, HEIGHT, 1);
+        thumbnails.request(5, "seed-5", () -> TerrainCache.getShared().get(5), () -> false);
+        Thumbnails.Thumbnail skipped = take(thumbnails);
+        assertNotNull(skipped);
+        assertEquals(5, skipped.getIndex());
+        assertTrue(skipped.isSkipped());
+    }
+}